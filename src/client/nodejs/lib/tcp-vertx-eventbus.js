@@ -53,6 +53,45 @@ function send(transport, message) {
   transport.write(Buffer.concat([buffer, message], 4 + msgLen));
 }
 
+/**
+ * Write a frame, send and publish frames are queued until the end of the tick when auto batching is enabled
+ */
+function write(eb, envelope, batchable) {
+  if (eb.autoBatch) {
+    if (batchable) {
+      if (eb.pending.push(envelope) === 1) {
+        process.nextTick(function () {
+          flush(eb);
+        });
+      }
+      return;
+    }
+    // keep the order of the frames
+    flush(eb);
+  }
+
+  send(eb.transport, JSON.stringify(envelope));
+}
+
+/**
+ * Send the queued frames, as a single batch frame when there is more than one
+ */
+function flush(eb) {
+  var pending = eb.pending;
+
+  if (pending.length === 0) {
+    return;
+  }
+
+  eb.pending = [];
+
+  if (pending.length === 1) {
+    send(eb.transport, JSON.stringify(pending[0]));
+  } else {
+    send(eb.transport, JSON.stringify({type: 'batch', body: pending}));
+  }
+}
+
 /**
  * EventBus
  *
@@ -97,6 +136,10 @@ var EventBus = function (host, port, options) {
   this.replyHandlers = {};
   this.defaultHeaders = null;
 
+  // send and publish frames issued in the same tick are sent as a single batch frame
+  this.autoBatch = !!options.vertxbus_auto_batch;
+  this.pending = [];
+
   // default event handlers
   this.onerror = console.error;
 
@@ -174,6 +217,9 @@ var EventBus = function (host, port, options) {
         } else {
           if (json.type === 'err') {
             self.onerror(json);
+          } else if (json.type === 'closing') {
+            // the bridge is shutting down, it closes the connection once drained
+            self.onclosing && self.onclosing();
           } else {
             console.warn('No handler found for message: ', json);
           }
@@ -215,7 +261,7 @@ EventBus.prototype.send = function (address, message, headers, callback) {
     this.replyHandlers[replyAddress] = callback;
   }
 
-  send(this.transport, JSON.stringify(envelope));
+  write(this, envelope, true);
 };
 
 /**
@@ -231,12 +277,12 @@ EventBus.prototype.publish = function (address, message, headers) {
     throw new Error('INVALID_STATE_ERR');
   }
 
-  send(this.transport, JSON.stringify({
+  write(this, {
     type: 'publish',
     address: address,
     headers: mergeHeaders(this.defaultHeaders, headers),
     body: message
-  }));
+  }, true);
 };
 
 /**
@@ -261,11 +307,11 @@ EventBus.prototype.registerHandler = function (address, headers, callback) {
   if (!this.handlers[address]) {
     this.handlers[address] = [];
     // First handler for this address so we should register the connection
-    send(this.transport, JSON.stringify({
+    write(this, {
       type: 'register',
       address: address,
       headers: mergeHeaders(this.defaultHeaders, headers)
-    }));
+    }, false);
   }
 
   this.handlers[address].push(callback);
@@ -298,11 +344,11 @@ EventBus.prototype.unregisterHandler = function (address, headers, callback) {
       handlers.splice(idx, 1);
       if (handlers.length === 0) {
         // No more local handlers so we should unregister the connection
-        send(this.transport, JSON.stringify({
+        write(this, {
           type: 'unregister',
           address: address,
           headers: mergeHeaders(this.defaultHeaders, headers)
-        }));
+        }, false);
 
         delete this.handlers[address];
       }
@@ -314,6 +360,7 @@ EventBus.prototype.unregisterHandler = function (address, headers, callback) {
  * Closes the connection to the EvenBus Bridge.
  */
 EventBus.prototype.close = function () {
+  flush(this);
   this.state = EventBus.CLOSING;
   this.transport.close();
 };
@@ -100,3 +100,34 @@ describe('send v. publish', function () {
     };
   });
 });
+
+describe('auto batch', function () {
+  it('should send the frames of a tick in a single batch', function (done) {
+    var eb = new EventBus('localhost', 7000, {vertxbus_auto_batch: true});
+
+    eb.onerror = function (err) {
+      console.error(err);
+      assert.fail();
+    };
+
+    eb.onopen = function () {
+      var replies = 0;
+
+      var handler = function (err, res) {
+        if (err) {
+          assert.fail();
+          return;
+        }
+
+        assert.equal(res.body.value, 'vert.x');
+        if (++replies === 3) {
+          done();
+        }
+      };
+
+      eb.send('echo', {value: 'vert.x'}, handler);
+      eb.send('echo', {value: 'vert.x'}, handler);
+      eb.send('echo', {value: 'vert.x'}, handler);
+    };
+  });
+});
@@ -16,12 +16,15 @@
 
 package examples;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import io.vertx.core.Vertx;
 import io.vertx.core.net.SocketAddress;
 import io.vertx.docgen.Source;
 import io.vertx.ext.bridge.BridgeOptions;
 import io.vertx.ext.bridge.PermittedOptions;
 import io.vertx.ext.eventbus.bridge.tcp.TcpEventBusBridge;
+import io.vertx.ext.eventbus.bridge.tcp.TcpEventBusBridgeOptions;
+import io.vertx.ext.eventbus.bridge.tcp.metrics.MicrometerTcpEventBusBridgeMetrics;
 
 /**
  *
@@ -57,4 +60,15 @@ public class TCPBridgeExamples {
       }
     });
   }
+
+  public void micrometerMetrics(Vertx vertx, MeterRegistry registry) {
+    TcpEventBusBridge bridge = TcpEventBusBridge.create(
+        vertx,
+        new TcpEventBusBridgeOptions()
+            .addInboundPermitted(new PermittedOptions().setAddress("in"))
+            .addOutboundPermitted(new PermittedOptions().setAddress("out"))
+            .setMetrics(new MicrometerTcpEventBusBridgeMetrics(registry)));
+
+    bridge.listen(7000);
+  }
 }
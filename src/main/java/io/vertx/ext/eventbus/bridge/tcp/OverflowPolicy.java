@@ -0,0 +1,48 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.eventbus.bridge.tcp;
+
+import io.vertx.codegen.annotations.VertxGen;
+
+/**
+ * What the bridge does with the published messages delivered to a socket whose queue is full. Whatever the policy, the
+ * socket is paused once {@code maxQueuedMessages} messages are queued for it: it takes no more point-to-point messages
+ * and the event bus consumer of an address is paused when all its sockets are.
+ */
+@VertxGen
+public enum OverflowPolicy {
+
+  /**
+   * Pause the socket as soon as its write queue is full, until it drains. Published messages still delivered to the
+   * socket, when other sockets keep the consumer running, are dropped beyond the max queued messages.
+   */
+  BLOCK,
+
+  /**
+   * Drop the incoming published message when the queue of the socket is full.
+   */
+  DROP_NEWEST,
+
+  /**
+   * Drop the oldest queued published message when the queue of the socket is full.
+   */
+  DROP_OLDEST,
+
+  /**
+   * Close the socket when its queue is full and a published message arrives.
+   */
+  DISCONNECT
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.eventbus.bridge.tcp;
+
+import io.vertx.codegen.annotations.DataObject;
+import io.vertx.codegen.json.annotations.JsonGen;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.bridge.PermittedOptions;
+
+/**
+ * A rate limit on the {@code send} and {@code publish} frames of all the clients of a bridge, for the addresses matched
+ * like {@link PermittedOptions}: an exact address or a regular expression.
+ */
+@DataObject
+@JsonGen(publicConverter = false)
+public class RateLimitOptions extends PermittedOptions {
+
+  /**
+   * Default rate = 0 (no limit)
+   */
+  public static final int DEFAULT_RATE = 0;
+
+  /**
+   * Default burst = 0 (one second of the rate)
+   */
+  public static final int DEFAULT_BURST = 0;
+
+  private int rate;
+  private int burst;
+
+  public RateLimitOptions() {
+    super();
+    init();
+  }
+
+  public RateLimitOptions(RateLimitOptions other) {
+    super(other);
+    this.rate = other.rate;
+    this.burst = other.burst;
+  }
+
+  public RateLimitOptions(JsonObject json) {
+    super(json);
+    init();
+    RateLimitOptionsConverter.fromJson(json, this);
+  }
+
+  private void init() {
+    rate = DEFAULT_RATE;
+    burst = DEFAULT_BURST;
+  }
+
+  @Override
+  public JsonObject toJson() {
+    JsonObject json = super.toJson();
+    RateLimitOptionsConverter.toJson(this, json);
+    return json;
+  }
+
+  /**
+   * @return the max number of frames per second
+   */
+  public int getRate() {
+    return rate;
+  }
+
+  /**
+   * Set the max number of frames per second for the matched addresses, {@code 0} means no limit.
+   *
+   * @param rate the rate
+   * @return a reference to this, so the API can be used fluently
+   */
+  public RateLimitOptions setRate(int rate) {
+    if (rate < 0) {
+      throw new IllegalArgumentException("rate must be >= 0");
+    }
+    this.rate = rate;
+    return this;
+  }
+
+  /**
+   * @return the max number of frames accepted at once
+   */
+  public int getBurst() {
+    return burst;
+  }
+
+  /**
+   * Set the max number of frames accepted at once after an idle period, {@code 0} allows one second of the rate.
+   *
+   * @param burst the burst
+   * @return a reference to this, so the API can be used fluently
+   */
+  public RateLimitOptions setBurst(int burst) {
+    if (burst < 0) {
+      throw new IllegalArgumentException("burst must be >= 0");
+    }
+    this.burst = burst;
+    return this;
+  }
+
+  @Override
+  public RateLimitOptions setAddress(String address) {
+    super.setAddress(address);
+    return this;
+  }
+
+  @Override
+  public RateLimitOptions setAddressRegex(String addressRegex) {
+    super.setAddressRegex(addressRegex);
+    return this;
+  }
+}
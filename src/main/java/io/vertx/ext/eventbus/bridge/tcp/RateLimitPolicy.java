@@ -0,0 +1,36 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.eventbus.bridge.tcp;
+
+import io.vertx.codegen.annotations.VertxGen;
+
+/**
+ * What the bridge does with the frames of a client over a rate limit.
+ */
+@VertxGen
+public enum RateLimitPolicy {
+
+  /**
+   * Accept the frame and stop reading from the socket until the limit allows the next frames, the client is throttled
+   * by TCP flow control.
+   */
+  PAUSE,
+
+  /**
+   * Reject the frame with an {@code err} frame whose message is {@code rate_limit_exceeded}.
+   */
+  REJECT
+}
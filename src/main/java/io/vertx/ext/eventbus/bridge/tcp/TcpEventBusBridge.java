@@ -84,10 +84,48 @@ public interface TcpEventBusBridge {
     return Future.failedFuture("Not supported");
   }
 
+  /**
+   * Update the inbound and outbound permissions of the bridge without closing the connections, see
+   * {@link #updateOptions(BridgeOptions, boolean)}.
+   *
+   * @param options the options holding the new permissions
+   * @return a future completed once the new permissions apply
+   */
+  default Future<Void> updateOptions(BridgeOptions options) {
+    return Future.failedFuture("Not supported");
+  }
+
+  /**
+   * Update the inbound and outbound permissions of the bridge without closing the connections. The permissions are
+   * compiled on a worker thread, then all the following frames are checked against them. The other options are not
+   * updated.
+   *
+   * @param options the options holding the new permissions
+   * @param revoke whether to unregister the clients from the addresses that are no longer permitted, they receive an
+   *               {@code err} frame with the address and the {@code access_denied} message
+   * @return a future completed once the new permissions apply
+   */
+  default Future<Void> updateOptions(BridgeOptions options, boolean revoke) {
+    return Future.failedFuture("Not supported");
+  }
+
   /**
    * Close the current socket.
    *
    * @return a future of the result
    */
   Future<Void> close();
+
+  /**
+   * Close the current socket gracefully: stop accepting connections, send a {@code closing} frame to the clients so
+   * they can reconnect elsewhere and stop delivering messages to them. Each connection is closed once the messages
+   * already queued for it are written and its in-flight requests have their response, the remaining connections are
+   * closed after the drain timeout.
+   *
+   * @param drainTimeout the max time to drain the connections in milliseconds
+   * @return a future completed once all the connections are closed
+   */
+  default Future<Void> close(long drainTimeout) {
+    return Future.failedFuture("Not supported");
+  }
 }
@@ -0,0 +1,844 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.eventbus.bridge.tcp;
+
+import io.vertx.codegen.annotations.DataObject;
+import io.vertx.codegen.annotations.GenIgnore;
+import io.vertx.codegen.json.annotations.JsonGen;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.bridge.BridgeEventType;
+import io.vertx.ext.bridge.BridgeOptions;
+import io.vertx.ext.bridge.PermittedOptions;
+import io.vertx.ext.eventbus.bridge.tcp.spi.metrics.TcpEventBusBridgeMetrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Options for the TCP EventBus bridge, on top of the permissions of {@link BridgeOptions}.
+ */
+@DataObject
+@JsonGen(publicConverter = false)
+public class TcpEventBusBridgeOptions extends BridgeOptions {
+
+  /**
+   * Default max frame size = {@link Integer#MAX_VALUE} (no limit)
+   */
+  public static final int DEFAULT_MAX_FRAME_SIZE = Integer.MAX_VALUE;
+
+  /**
+   * Default write queue high water mark = -1 (use the socket default)
+   */
+  public static final int DEFAULT_WRITE_QUEUE_HIGH_WATER_MARK = -1;
+
+  /**
+   * Default write queue low water mark = -1 (half of the high water mark)
+   */
+  public static final int DEFAULT_WRITE_QUEUE_LOW_WATER_MARK = -1;
+
+  /**
+   * Default overflow policy = {@link OverflowPolicy#BLOCK}
+   */
+  public static final OverflowPolicy DEFAULT_OVERFLOW_POLICY = OverflowPolicy.BLOCK;
+
+  /**
+   * Default max queued messages = 1000
+   */
+  public static final int DEFAULT_MAX_QUEUED_MESSAGES = 1000;
+
+  /**
+   * Default codec = {@code json}
+   */
+  public static final String DEFAULT_CODEC = "json";
+
+  /**
+   * Default use binary frames = false
+   */
+  public static final boolean DEFAULT_USE_BINARY_FRAMES = false;
+
+  /**
+   * Default compression threshold = -1 (compression disabled)
+   */
+  public static final int DEFAULT_COMPRESSION_THRESHOLD = -1;
+
+  /**
+   * Default compression level = 6
+   */
+  public static final int DEFAULT_COMPRESSION_LEVEL = 6;
+
+  /**
+   * Default bridge event per batch = false
+   */
+  public static final boolean DEFAULT_BRIDGE_EVENT_PER_BATCH = false;
+
+  /**
+   * Default reply timeout = 30000 ms (the event bus default send timeout)
+   */
+  public static final long DEFAULT_REPLY_TIMEOUT = DeliveryOptions.DEFAULT_TIMEOUT;
+
+  /**
+   * Default max in-flight requests = 0 (no limit)
+   */
+  public static final int DEFAULT_MAX_INFLIGHT_REQUESTS = 0;
+
+  /**
+   * Default max queued requests = 0
+   */
+  public static final int DEFAULT_MAX_QUEUED_REQUESTS = 0;
+
+  /**
+   * Default ping timeout = 0 (sockets are never closed)
+   */
+  public static final long DEFAULT_PING_TIMEOUT = 0;
+
+  /**
+   * Default max connections = 0 (no limit)
+   */
+  public static final int DEFAULT_MAX_CONNECTIONS = 0;
+
+  /**
+   * Default max connection rate = 0 (no limit)
+   */
+  public static final int DEFAULT_MAX_CONNECTION_RATE = 0;
+
+  /**
+   * Default max handlers per socket = 0 (no limit)
+   */
+  public static final int DEFAULT_MAX_HANDLERS_PER_SOCKET = 0;
+
+  /**
+   * Default max frame rate = 0 (no limit)
+   */
+  public static final int DEFAULT_MAX_FRAME_RATE = 0;
+
+  /**
+   * Default max byte rate = 0 (no limit)
+   */
+  public static final int DEFAULT_MAX_BYTE_RATE = 0;
+
+  /**
+   * Default rate limit policy = {@link RateLimitPolicy#PAUSE}
+   */
+  public static final RateLimitPolicy DEFAULT_RATE_LIMIT_POLICY = RateLimitPolicy.PAUSE;
+
+  /**
+   * Default prioritize replies = true
+   */
+  public static final boolean DEFAULT_PRIORITIZE_REPLIES = true;
+
+  private int maxFrameSize;
+  private String codec;
+  private boolean useBinaryFrames;
+  private int writeQueueHighWaterMark;
+  private int writeQueueLowWaterMark;
+  private OverflowPolicy overflowPolicy;
+  private int maxQueuedMessages;
+  private int compressionThreshold;
+  private int compressionLevel;
+  private boolean bridgeEventPerBatch;
+  private Set<BridgeEventType> bridgeEventTypes;
+  private List<PermittedOptions> bridgeEventPermitteds;
+  private Predicate<BridgeEvent> bridgeEventFilter;
+  private long replyTimeout;
+  private int maxInflightRequests;
+  private int maxQueuedRequests;
+  private long pingTimeout;
+  private int maxConnections;
+  private int maxConnectionRate;
+  private int maxHandlersPerSocket;
+  private int maxFrameRate;
+  private int maxByteRate;
+  private List<RateLimitOptions> rateLimits;
+  private RateLimitPolicy rateLimitPolicy;
+  private boolean prioritizeReplies;
+  private TcpEventBusBridgeMetrics metrics;
+
+  public TcpEventBusBridgeOptions() {
+    super();
+    init();
+  }
+
+  public TcpEventBusBridgeOptions(TcpEventBusBridgeOptions other) {
+    super(other);
+    this.maxFrameSize = other.maxFrameSize;
+    this.codec = other.codec;
+    this.useBinaryFrames = other.useBinaryFrames;
+    this.writeQueueHighWaterMark = other.writeQueueHighWaterMark;
+    this.writeQueueLowWaterMark = other.writeQueueLowWaterMark;
+    this.overflowPolicy = other.overflowPolicy;
+    this.maxQueuedMessages = other.maxQueuedMessages;
+    this.compressionThreshold = other.compressionThreshold;
+    this.compressionLevel = other.compressionLevel;
+    this.bridgeEventPerBatch = other.bridgeEventPerBatch;
+    this.bridgeEventTypes = new LinkedHashSet<>(other.bridgeEventTypes);
+    this.bridgeEventPermitteds = new ArrayList<>(other.bridgeEventPermitteds);
+    this.bridgeEventFilter = other.bridgeEventFilter;
+    this.replyTimeout = other.replyTimeout;
+    this.maxInflightRequests = other.maxInflightRequests;
+    this.maxQueuedRequests = other.maxQueuedRequests;
+    this.pingTimeout = other.pingTimeout;
+    this.maxConnections = other.maxConnections;
+    this.maxConnectionRate = other.maxConnectionRate;
+    this.maxHandlersPerSocket = other.maxHandlersPerSocket;
+    this.maxFrameRate = other.maxFrameRate;
+    this.maxByteRate = other.maxByteRate;
+    this.rateLimits = new ArrayList<>(other.rateLimits);
+    this.rateLimitPolicy = other.rateLimitPolicy;
+    this.prioritizeReplies = other.prioritizeReplies;
+    this.metrics = other.metrics;
+  }
+
+  public TcpEventBusBridgeOptions(JsonObject json) {
+    super(json);
+    init();
+    TcpEventBusBridgeOptionsConverter.fromJson(json, this);
+  }
+
+  private void init() {
+    maxFrameSize = DEFAULT_MAX_FRAME_SIZE;
+    codec = DEFAULT_CODEC;
+    useBinaryFrames = DEFAULT_USE_BINARY_FRAMES;
+    writeQueueHighWaterMark = DEFAULT_WRITE_QUEUE_HIGH_WATER_MARK;
+    writeQueueLowWaterMark = DEFAULT_WRITE_QUEUE_LOW_WATER_MARK;
+    overflowPolicy = DEFAULT_OVERFLOW_POLICY;
+    maxQueuedMessages = DEFAULT_MAX_QUEUED_MESSAGES;
+    compressionThreshold = DEFAULT_COMPRESSION_THRESHOLD;
+    compressionLevel = DEFAULT_COMPRESSION_LEVEL;
+    bridgeEventPerBatch = DEFAULT_BRIDGE_EVENT_PER_BATCH;
+    bridgeEventTypes = new LinkedHashSet<>();
+    bridgeEventPermitteds = new ArrayList<>();
+    replyTimeout = DEFAULT_REPLY_TIMEOUT;
+    maxInflightRequests = DEFAULT_MAX_INFLIGHT_REQUESTS;
+    maxQueuedRequests = DEFAULT_MAX_QUEUED_REQUESTS;
+    pingTimeout = DEFAULT_PING_TIMEOUT;
+    maxConnections = DEFAULT_MAX_CONNECTIONS;
+    maxConnectionRate = DEFAULT_MAX_CONNECTION_RATE;
+    maxHandlersPerSocket = DEFAULT_MAX_HANDLERS_PER_SOCKET;
+    maxFrameRate = DEFAULT_MAX_FRAME_RATE;
+    maxByteRate = DEFAULT_MAX_BYTE_RATE;
+    rateLimits = new ArrayList<>();
+    rateLimitPolicy = DEFAULT_RATE_LIMIT_POLICY;
+    prioritizeReplies = DEFAULT_PRIORITIZE_REPLIES;
+  }
+
+  @Override
+  public JsonObject toJson() {
+    JsonObject json = super.toJson();
+    TcpEventBusBridgeOptionsConverter.toJson(this, json);
+    return json;
+  }
+
+  /**
+   * @return the maximum length in bytes of a frame sent by a client
+   */
+  public int getMaxFrameSize() {
+    return maxFrameSize;
+  }
+
+  /**
+   * Set the maximum length in bytes of a frame sent by a client. The limit is checked as soon as the length prefix is
+   * read: larger frames are skipped without being buffered and the client receives a {@code frame_too_large} error.
+   *
+   * @param maxFrameSize the max frame size
+   * @return a reference to this, so the API can be used fluently
+   */
+  public TcpEventBusBridgeOptions setMaxFrameSize(int maxFrameSize) {
+    if (maxFrameSize < 0) {
+      throw new IllegalArgumentException("maxFrameSize must be >= 0");
+    }
+    this.maxFrameSize = maxFrameSize;
+    return this;
+  }
+
+  /**
+   * @return the name of the codec of the frame payloads
+   */
+  public String getCodec() {
+    return codec;
+  }
+
+  /**
+   * Set the name of the codec of the frame payloads on the connections of this bridge: {@code json} (the default),
+   * {@code cbor} (requires {@code jackson-dataformat-cbor}) or the name of a
+   * {@link io.vertx.ext.eventbus.bridge.tcp.spi.FrameCodec} found with the {@link java.util.ServiceLoader}.
+   *
+   * @param codec the codec name
+   * @return a reference to this, so the API can be used fluently
+   */
+  public TcpEventBusBridgeOptions setCodec(String codec) {
+    this.codec = codec;
+    return this;
+  }
+
+  /**
+   * @return whether messages with a {@link io.vertx.core.buffer.Buffer} body are sent to clients as binary frames
+   */
+  public boolean isUseBinaryFrames() {
+    return useBinaryFrames;
+  }
+
+  /**
+   * Set whether messages with a {@link io.vertx.core.buffer.Buffer} body are sent to clients as binary frames instead of
+   * JSON frames with a base64 encoded body. Binary frames sent by clients are always accepted.
+   *
+   * @param useBinaryFrames {@code true} to send binary frames
+   * @return a reference to this, so the API can be used fluently
+   */
+  public TcpEventBusBridgeOptions setUseBinaryFrames(boolean useBinaryFrames) {
+    this.useBinaryFrames = useBinaryFrames;
+    return this;
+  }
+
+  /**
+   * @return the size in bytes above which the write queue of a socket is considered full
+   */
+  public int getWriteQueueHighWaterMark() {
+    return writeQueueHighWaterMark;
+  }
+
+  /**
+   * Set the size in bytes above which the write queue of a socket is considered full, the event bus messages for the
+   * socket are then subject to the {@link #setOverflowPolicy(OverflowPolicy) overflow policy}. A negative value keeps
+   * the socket default.
+   *
+   * @param writeQueueHighWaterMark the high water mark
+   * @return a reference to this, so the API can be used fluently
+   */
+  public TcpEventBusBridgeOptions setWriteQueueHighWaterMark(int writeQueueHighWaterMark) {
+    this.writeQueueHighWaterMark = writeQueueHighWaterMark;
+    return this;
+  }
+
+  /**
+   * @return the size in bytes below which a full write queue is drained
+   */
+  public int getWriteQueueLowWaterMark() {
+    return writeQueueLowWaterMark;
+  }
+
+  /**
+   * Set the size in bytes below which a full write queue is considered drained, the socket then resumes receiving event
+   * bus messages. A negative value uses half of the high water mark.
+   *
+   * @param writeQueueLowWaterMark the low water mark
+   * @return a reference to this, so the API can be used fluently
+   */
+  public TcpEventBusBridgeOptions setWriteQueueLowWaterMark(int writeQueueLowWaterMark) {
+    this.writeQueueLowWaterMark = writeQueueLowWaterMark;
+    return this;
+  }
+
+  /**
+   * @return the policy applied to the messages for a socket whose write queue is full
+   */
+  public OverflowPolicy getOverflowPolicy() {
+    return overflowPolicy;
+  }
+
+  /**
+   * Set the policy applied to the published messages for a socket whose queue is full. The socket is paused once the max
+   * queued messages is reached, whatever the policy, point-to-point messages are never dropped.
+   *
+   * @param overflowPolicy the overflow policy
+   * @return a reference to this, so the API can be used fluently
+   */
+  public TcpEventBusBridgeOptions setOverflowPolicy(OverflowPolicy overflowPolicy) {
+    this.overflowPolicy = overflowPolicy;
+    return this;
+  }
+
+  /**
+   * @return the max number of messages queued for a socket whose write queue is full
+   */
+  public int getMaxQueuedMessages() {
+    return maxQueuedMessages;
+  }
+
+  /**
+   * Set the max number of messages the bridge queues for a socket whose write queue is full. The socket is then paused
+   * and the {@link #setOverflowPolicy(OverflowPolicy) overflow policy} applies to the published messages.
+   *
+   * @param maxQueuedMessages the max queued messages
+   * @return a reference to this, so the API can be used fluently
+   */
+  public TcpEventBusBridgeOptions setMaxQueuedMessages(int maxQueuedMessages) {
+    if (maxQueuedMessages < 0) {
+      throw new IllegalArgumentException("maxQueuedMessages must be >= 0");
+    }
+    this.maxQueuedMessages = maxQueuedMessages;
+    return this;
+  }
+
+  /**
+   * @return the payload size in bytes from which outbound frames are compressed
+   */
+  public int getCompressionThreshold() {
+    return compressionThreshold;
+  }
+
+  /**
+   * Set the payload size in bytes from which outbound frames are compressed, a negative value disables compression.
+   * <p>
+   * Compression is negotiated per connection: the bridge accepts compressed frames and only starts compressing the
+   * frames it sends once the client has sent a compressed frame itself, clients unaware of compression are unaffected.
+   *
+   * @param compressionThreshold the compression threshold
+   * @return a reference to this, so the API can be used fluently
+   */
+  public TcpEventBusBridgeOptions setCompressionThreshold(int compressionThreshold) {
+    this.compressionThreshold = compressionThreshold;
+    return this;
+  }
+
+  /**
+   * @return the deflate compression level
+   */
+  public int getCompressionLevel() {
+    return compressionLevel;
+  }
+
+  /**
+   * Set the deflate compression level, from 1 (fastest) to 9 (smallest), 0 stores the frames without compressing them.
+   *
+   * @param compressionLevel the compression level
+   * @return a reference to this, so the API can be used fluently
+   */
+  public TcpEventBusBridgeOptions setCompressionLevel(int compressionLevel) {
+    if (compressionLevel < 0 || compressionLevel > 9) {
+      throw new IllegalArgumentException("compressionLevel must be between 0 and 9");
+    }
+    this.compressionLevel = compressionLevel;
+    return this;
+  }
+
+  /**
+   * @return whether the bridge event handler is called once for a whole batch frame
+   */
+  public boolean isBridgeEventPerBatch() {
+    return bridgeEventPerBatch;
+  }
+
+  /**
+   * Set whether the bridge event handler is called once for a whole batch frame instead of once for each frame of the
+   * batch. The event has the batch frame as raw message, rejecting it rejects all the frames of the batch. Its type is
+   * {@link io.vertx.ext.bridge.BridgeEventType#PUBLISH} when the batch only has publish frames, and
+   * {@link io.vertx.ext.bridge.BridgeEventType#SEND} when it has at least one send frame, the
+   * {@link #setBridgeEventTypes(Set) event types} select batches by this type.
+   *
+   * @param bridgeEventPerBatch {@code true} to call the handler once per batch
+   * @return a reference to this, so the API can be used fluently
+   */
+  public TcpEventBusBridgeOptions setBridgeEventPerBatch(boolean bridgeEventPerBatch) {
+    this.bridgeEventPerBatch = bridgeEventPerBatch;
+    return this;
+  }
+
+  /**
+   * @return the types of the events given to the bridge event handler, all of them when empty
+   */
+  public Set<BridgeEventType> getBridgeEventTypes() {
+    return bridgeEventTypes;
+  }
+
+  /**
+   * Set the types of the events given to the bridge event handler and filter. The frames of the other types are
+   * processed without creating an event, as if the handler had accepted them.
+   *
+   * @param bridgeEventTypes the event types, all of them when empty
+   * @return a reference to this, so the API can be used fluently
+   */
+  public TcpEventBusBridgeOptions setBridgeEventTypes(Set<BridgeEventType> bridgeEventTypes) {
+    this.bridgeEventTypes = bridgeEventTypes;
+    return this;
+  }
+
+  /**
+   * Add a type of the events given to the bridge event handler and filter.
+   *
+   * @param bridgeEventType the event type
+   * @return a reference to this, so the API can be used fluently
+   */
+  public TcpEventBusBridgeOptions addBridgeEventType(BridgeEventType bridgeEventType) {
+    bridgeEventTypes.add(bridgeEventType);
+    return this;
+  }
+
+  /**
+   * @return the addresses of the events given to the bridge event handler, all of them when empty
+   */
+  public List<PermittedOptions> getBridgeEventPermitteds() {
+    return bridgeEventPermitteds;
+  }
+
+  /**
+   * Set the addresses of the events given to the bridge event handler and filter, matched like the permitted
+   * addresses. The frames to the other addresses are processed without creating an event, as if the handler had
+   * accepted them. Events without an address, like {@code SOCKET_PING}, are only selected by their type.
+   *
+   * @param bridgeEventPermitteds the addresses, all of them when empty
+   * @return a reference to this, so the API can be used fluently
+   */
+  public TcpEventBusBridgeOptions setBridgeEventPermitteds(List<PermittedOptions> bridgeEventPermitteds) {
+    this.bridgeEventPermitteds = bridgeEventPermitteds;
+    return this;
+  }
+
+  /**
+   * Add an address of the events given to the bridge event handler and filter.
+   *
+   * @param bridgeEventPermitted the address
+   * @return a reference to this, so the API can be used fluently
+   */
+  public TcpEventBusBridgeOptions addBridgeEventPermitted(PermittedOptions bridgeEventPermitted) {
+    bridgeEventPermitteds.add(bridgeEventPermitted);
+    return this;
+  }
+
+  /**
+   * @return the synchronous bridge event filter, or {@code null}
+   */
+  @GenIgnore
+  public Predicate<BridgeEvent> getBridgeEventFilter() {
+    return bridgeEventFilter;
+  }
+
+  /**
+   * Set a synchronous bridge event filter, called on the event loop before the bridge event handler. Its result
+   * decides right away: an event it rejects is rejected, an event it accepts goes to the bridge event handler when
+   * there is one, or is accepted. The event is never completed through its promise, so filtering costs no future
+   * callback.
+   *
+   * @param bridgeEventFilter the filter, must not block
+   * @return a reference to this, so the API can be used fluently
+   */
+  @GenIgnore
+  public TcpEventBusBridgeOptions setBridgeEventFilter(Predicate<BridgeEvent> bridgeEventFilter) {
+    this.bridgeEventFilter = bridgeEventFilter;
+    return this;
+  }
+
+  /**
+   * @return the time in milliseconds the bridge waits for the client to reply to a message
+   */
+  public long getReplyTimeout() {
+    return replyTimeout;
+  }
+
+  /**
+   * Set the time in milliseconds the bridge waits for the client to reply to a message, a message with a
+   * {@code timeout} header waits for that time instead. Once the time has passed a reply from the client is rejected,
+   * the sender has given up anyway. A value {@code <= 0} waits until the socket is closed.
+   *
+   * @param replyTimeout the reply timeout
+   * @return a reference to this, so the API can be used fluently
+   */
+  public TcpEventBusBridgeOptions setReplyTimeout(long replyTimeout) {
+    this.replyTimeout = replyTimeout;
+    return this;
+  }
+
+  /**
+   * @return the max number of requests of a socket waiting for their response at the same time
+   */
+  public int getMaxInflightRequests() {
+    return maxInflightRequests;
+  }
+
+  /**
+   * Set the max number of requests (frames with a {@code replyAddress}) of a socket waiting for their response at the
+   * same time, {@code 0} means no limit. The following requests wait for a response, up to
+   * {@link #setMaxQueuedRequests(int) maxQueuedRequests}, after which they are rejected with an {@code err} frame whose
+   * message is {@code too_many_requests}.
+   *
+   * @param maxInflightRequests the max in-flight requests
+   * @return a reference to this, so the API can be used fluently
+   */
+  public TcpEventBusBridgeOptions setMaxInflightRequests(int maxInflightRequests) {
+    if (maxInflightRequests < 0) {
+      throw new IllegalArgumentException("maxInflightRequests must be >= 0");
+    }
+    this.maxInflightRequests = maxInflightRequests;
+    return this;
+  }
+
+  /**
+   * @return the max number of requests of a socket waiting for an in-flight request to complete
+   */
+  public int getMaxQueuedRequests() {
+    return maxQueuedRequests;
+  }
+
+  /**
+   * Set the max number of requests of a socket waiting for an in-flight request to complete once
+   * {@link #setMaxInflightRequests(int) maxInflightRequests} is reached.
+   *
+   * @param maxQueuedRequests the max queued requests
+   * @return a reference to this, so the API can be used fluently
+   */
+  public TcpEventBusBridgeOptions setMaxQueuedRequests(int maxQueuedRequests) {
+    if (maxQueuedRequests < 0) {
+      throw new IllegalArgumentException("maxQueuedRequests must be >= 0");
+    }
+    this.maxQueuedRequests = maxQueuedRequests;
+    return this;
+  }
+
+  /**
+   * @return the time in milliseconds after which the socket of a silent client is closed
+   */
+  public long getPingTimeout() {
+    return pingTimeout;
+  }
+
+  /**
+   * Set the time in milliseconds after which the socket of a client that has not sent any frame is closed, so half-open
+   * connections release their registrations. Clients send {@code ping} frames to stay connected while idle. A value
+   * {@code <= 0} never closes sockets.
+   *
+   * @param pingTimeout the ping timeout
+   * @return a reference to this, so the API can be used fluently
+   */
+  public TcpEventBusBridgeOptions setPingTimeout(long pingTimeout) {
+    this.pingTimeout = pingTimeout;
+    return this;
+  }
+
+  /**
+   * @return the max number of connections of the bridge
+   */
+  public int getMaxConnections() {
+    return maxConnections;
+  }
+
+  /**
+   * Set the max number of connections of the bridge, {@code 0} means no limit. Further connections receive an
+   * {@code err} frame with the {@code too_many_connections} message and are closed.
+   *
+   * @param maxConnections the max connections
+   * @return a reference to this, so the API can be used fluently
+   */
+  public TcpEventBusBridgeOptions setMaxConnections(int maxConnections) {
+    if (maxConnections < 0) {
+      throw new IllegalArgumentException("maxConnections must be >= 0");
+    }
+    this.maxConnections = maxConnections;
+    return this;
+  }
+
+  /**
+   * @return the max number of connections accepted per second
+   */
+  public int getMaxConnectionRate() {
+    return maxConnectionRate;
+  }
+
+  /**
+   * Set the max number of connections accepted per second, {@code 0} means no limit. Connections above the rate
+   * receive an {@code err} frame with the {@code connection_rate_exceeded} message and are closed.
+   *
+   * @param maxConnectionRate the max connection rate
+   * @return a reference to this, so the API can be used fluently
+   */
+  public TcpEventBusBridgeOptions setMaxConnectionRate(int maxConnectionRate) {
+    if (maxConnectionRate < 0) {
+      throw new IllegalArgumentException("maxConnectionRate must be >= 0");
+    }
+    this.maxConnectionRate = maxConnectionRate;
+    return this;
+  }
+
+  /**
+   * @return the max number of addresses a socket can be registered to
+   */
+  public int getMaxHandlersPerSocket() {
+    return maxHandlersPerSocket;
+  }
+
+  /**
+   * Set the max number of addresses a socket can be registered to, {@code 0} means no limit. Further {@code register}
+   * frames are rejected with an {@code err} frame whose message is {@code too_many_handlers}.
+   *
+   * @param maxHandlersPerSocket the max handlers per socket
+   * @return a reference to this, so the API can be used fluently
+   */
+  public TcpEventBusBridgeOptions setMaxHandlersPerSocket(int maxHandlersPerSocket) {
+    if (maxHandlersPerSocket < 0) {
+      throw new IllegalArgumentException("maxHandlersPerSocket must be >= 0");
+    }
+    this.maxHandlersPerSocket = maxHandlersPerSocket;
+    return this;
+  }
+
+  /**
+   * @return the max number of frames per second of a socket
+   */
+  public int getMaxFrameRate() {
+    return maxFrameRate;
+  }
+
+  /**
+   * Set the max number of frames per second a client can send, {@code 0} means no limit. A client can send one second
+   * of frames at once, the {@link #setRateLimitPolicy(RateLimitPolicy) rate limit policy} applies above. Each frame of
+   * a {@code batch} frame counts.
+   *
+   * @param maxFrameRate the max frame rate
+   * @return a reference to this, so the API can be used fluently
+   */
+  public TcpEventBusBridgeOptions setMaxFrameRate(int maxFrameRate) {
+    if (maxFrameRate < 0) {
+      throw new IllegalArgumentException("maxFrameRate must be >= 0");
+    }
+    this.maxFrameRate = maxFrameRate;
+    return this;
+  }
+
+  /**
+   * @return the max number of bytes per second of a socket
+   */
+  public int getMaxByteRate() {
+    return maxByteRate;
+  }
+
+  /**
+   * Set the max number of bytes per second a client can send, {@code 0} means no limit. A client can send one second
+   * of bytes at once, the {@link #setRateLimitPolicy(RateLimitPolicy) rate limit policy} applies above.
+   *
+   * @param maxByteRate the max byte rate
+   * @return a reference to this, so the API can be used fluently
+   */
+  public TcpEventBusBridgeOptions setMaxByteRate(int maxByteRate) {
+    if (maxByteRate < 0) {
+      throw new IllegalArgumentException("maxByteRate must be >= 0");
+    }
+    this.maxByteRate = maxByteRate;
+    return this;
+  }
+
+  /**
+   * @return the rate limits of the addresses
+   */
+  public List<RateLimitOptions> getRateLimits() {
+    return rateLimits;
+  }
+
+  /**
+   * Set the rate limits of the permitted {@code send} and {@code publish} frames to some addresses. A limit is shared
+   * by all the clients of the bridge.
+   *
+   * @param rateLimits the rate limits
+   * @return a reference to this, so the API can be used fluently
+   */
+  public TcpEventBusBridgeOptions setRateLimits(List<RateLimitOptions> rateLimits) {
+    this.rateLimits = rateLimits;
+    return this;
+  }
+
+  /**
+   * Add a rate limit of the {@code send} and {@code publish} frames to some addresses.
+   *
+   * @param rateLimit the rate limit
+   * @return a reference to this, so the API can be used fluently
+   */
+  public TcpEventBusBridgeOptions addRateLimit(RateLimitOptions rateLimit) {
+    rateLimits.add(rateLimit);
+    return this;
+  }
+
+  /**
+   * @return what happens to the frames over a rate limit
+   */
+  public RateLimitPolicy getRateLimitPolicy() {
+    return rateLimitPolicy;
+  }
+
+  /**
+   * Set what happens to the frames over a rate limit: the socket is paused or the frame is rejected.
+   *
+   * @param rateLimitPolicy the rate limit policy
+   * @return a reference to this, so the API can be used fluently
+   */
+  public TcpEventBusBridgeOptions setRateLimitPolicy(RateLimitPolicy rateLimitPolicy) {
+    this.rateLimitPolicy = rateLimitPolicy;
+    return this;
+  }
+
+  /**
+   * @return whether the replies to the requests of a client are written ahead of the queued messages
+   */
+  public boolean isPrioritizeReplies() {
+    return prioritizeReplies;
+  }
+
+  /**
+   * Set whether the replies to the requests of a client are written ahead of the messages queued for a congested
+   * socket, like the {@code pong} and {@code err} frames. Otherwise they are queued with the messages, in order.
+   *
+   * @param prioritizeReplies {@code true} to write the replies ahead of the queued messages
+   * @return a reference to this, so the API can be used fluently
+   */
+  public TcpEventBusBridgeOptions setPrioritizeReplies(boolean prioritizeReplies) {
+    this.prioritizeReplies = prioritizeReplies;
+    return this;
+  }
+
+  /**
+   * @return the metrics implementation notified by the bridge, or {@code null}
+   */
+  @GenIgnore(GenIgnore.PERMITTED_TYPE)
+  public TcpEventBusBridgeMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Set the metrics implementation notified by the bridge.
+   *
+   * @param metrics the metrics implementation, {@code null} disables metrics
+   * @return a reference to this, so the API can be used fluently
+   */
+  @GenIgnore(GenIgnore.PERMITTED_TYPE)
+  public TcpEventBusBridgeOptions setMetrics(TcpEventBusBridgeMetrics metrics) {
+    this.metrics = metrics;
+    return this;
+  }
+
+  @Override
+  public TcpEventBusBridgeOptions addInboundPermitted(PermittedOptions permitted) {
+    super.addInboundPermitted(permitted);
+    return this;
+  }
+
+  @Override
+  public TcpEventBusBridgeOptions setInboundPermitteds(List<PermittedOptions> inboundPermitted) {
+    super.setInboundPermitteds(inboundPermitted);
+    return this;
+  }
+
+  @Override
+  public TcpEventBusBridgeOptions addOutboundPermitted(PermittedOptions permitted) {
+    super.addOutboundPermitted(permitted);
+    return this;
+  }
+
+  @Override
+  public TcpEventBusBridgeOptions setOutboundPermitteds(List<PermittedOptions> outboundPermitted) {
+    super.setOutboundPermitteds(outboundPermitted);
+    return this;
+  }
+}
@@ -0,0 +1,324 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.eventbus.bridge.tcp.impl;
+
+import io.vertx.ext.bridge.PermittedOptions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Decides whether an address is permitted by a list of {@link PermittedOptions}, the rules are compiled once:
+ * <ul>
+ *   <li>exact addresses, and regexes without any meta character, go to a hash set</li>
+ *   <li>regexes made of a literal prefix followed by {@code .*} or {@code .+} go to a prefix trie</li>
+ *   <li>all the other regexes are combined in a single pattern</li>
+ * </ul>
+ * The decisions that need a regex are kept in a bounded concurrent cache. Instances are immutable and thread safe.
+ */
+public final class AddressMatcher {
+
+  /**
+   * Max number of addresses in the decision cache, it is cleared when full.
+   */
+  public static final int DEFAULT_CACHE_SIZE = 4096;
+
+  private final boolean matchAll;
+  private final Set<String> exact;
+  private final Node prefixes;
+  private final Pattern combined;
+  private final Pattern[] others;
+
+  private final int cacheSize;
+  private final Map<String, Boolean> cache;
+
+  private AddressMatcher(boolean matchAll, Set<String> exact, Node prefixes, Pattern combined, Pattern[] others, int cacheSize) {
+    this.matchAll = matchAll;
+    this.exact = exact;
+    this.prefixes = prefixes;
+    this.combined = combined;
+    this.others = others;
+    this.cacheSize = cacheSize;
+    this.cache = cacheSize > 0 ? new ConcurrentHashMap<>() : null;
+  }
+
+  public static AddressMatcher compile(List<PermittedOptions> permitteds) {
+    return compile(permitteds, DEFAULT_CACHE_SIZE);
+  }
+
+  /**
+   * @param permitteds the rules
+   * @param cacheSize the max number of cached decisions, {@code 0} disables the cache
+   */
+  public static AddressMatcher compile(List<PermittedOptions> permitteds, int cacheSize) {
+    boolean matchAll = false;
+    final Set<String> exact = new HashSet<>();
+    final Builder prefixes = new Builder();
+    final List<String> combinable = new ArrayList<>();
+    final List<Pattern> others = new ArrayList<>();
+
+    for (PermittedOptions permitted : permitteds) {
+      final String address = permitted.getAddress();
+      if (address != null) {
+        exact.add(address);
+        continue;
+      }
+
+      final String regex = permitted.getAddressRegex();
+      if (regex == null) {
+        matchAll = true;
+        continue;
+      }
+
+      // fail early on invalid rules
+      Pattern.compile(regex);
+
+      final String literal = literal(regex, regex.length());
+      if (literal != null) {
+        exact.add(literal);
+        continue;
+      }
+
+      if (regex.endsWith(".*") || regex.endsWith(".+")) {
+        final String prefix = literal(regex, regex.length() - 2);
+        if (prefix != null) {
+          prefixes.add(prefix, regex.charAt(regex.length() - 1) == '*');
+          continue;
+        }
+      }
+
+      if (needsOwnPattern(regex)) {
+        others.add(Pattern.compile(regex));
+      } else {
+        combinable.add(regex);
+      }
+    }
+
+    Pattern combined = null;
+    if (!combinable.isEmpty()) {
+      final StringBuilder sb = new StringBuilder();
+      for (String regex : combinable) {
+        if (sb.length() > 0) {
+          sb.append('|');
+        }
+        sb.append("(?:").append(regex).append(')');
+      }
+      combined = Pattern.compile(sb.toString());
+    }
+
+    return new AddressMatcher(matchAll, exact, prefixes.build(), combined, others.toArray(new Pattern[0]), cacheSize);
+  }
+
+  public boolean matches(String address) {
+    if (matchAll) {
+      return true;
+    }
+    if (address == null) {
+      return false;
+    }
+    if (exact.contains(address)) {
+      return true;
+    }
+    if (prefixes != null && prefixes.matches(address)) {
+      return true;
+    }
+    if (combined == null && others.length == 0) {
+      return false;
+    }
+
+    if (cache == null) {
+      return regexMatches(address);
+    }
+
+    Boolean decision = cache.get(address);
+    if (decision == null) {
+      decision = regexMatches(address);
+      if (cache.size() >= cacheSize) {
+        cache.clear();
+      }
+      cache.put(address, decision);
+    }
+    return decision;
+  }
+
+  private boolean regexMatches(String address) {
+    if (combined != null && combined.matcher(address).matches()) {
+      return true;
+    }
+    for (Pattern pattern : others) {
+      if (pattern.matcher(address).matches()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return the string matched by the first {@code end} chars of the regex, or {@code null} when they are not literal
+   */
+  private static String literal(String regex, int end) {
+    final StringBuilder sb = new StringBuilder(end);
+    for (int i = 0; i < end; i++) {
+      final char c = regex.charAt(i);
+      if (c == '\\') {
+        // only escaped punctuation is literal, letters and digits are classes or back references
+        if (++i == end) {
+          return null;
+        }
+        final char escaped = regex.charAt(i);
+        if (Character.isLetterOrDigit(escaped)) {
+          return null;
+        }
+        sb.append(escaped);
+      } else if (".[]{}()*+?^$|".indexOf(c) != -1) {
+        return null;
+      } else {
+        sb.append(c);
+      }
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Regexes that cannot be wrapped in a combined pattern: back-references and named groups, whose numbers and names
+   * would clash, inline flags, which would leak into the next alternatives or turn the closing parenthesis into a
+   * comment, and {@code \Q} quotes, which would swallow it. A false positive only costs a pattern of its own.
+   */
+  private static boolean needsOwnPattern(String regex) {
+    for (int i = 0; i < regex.length() - 1; i++) {
+      final char c = regex.charAt(i);
+      if (c == '\\') {
+        final char next = regex.charAt(++i);
+        if ((next >= '1' && next <= '9') || next == 'k' || next == 'Q') {
+          return true;
+        }
+      } else if (c == '(' && regex.charAt(i + 1) == '?' && !isPlainGroup(regex, i + 2)) {
+        // (?<name>...) or inline flags such as (?i) and (?x:...)
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Non capturing groups, lookarounds and atomic groups, given the index following {@code (?}.
+   */
+  private static boolean isPlainGroup(String regex, int i) {
+    if (i == regex.length()) {
+      return false;
+    }
+    final char c = regex.charAt(i);
+    if (c == '<') {
+      return regex.startsWith("=", i + 1) || regex.startsWith("!", i + 1);
+    }
+    return c == ':' || c == '=' || c == '!' || c == '>';
+  }
+
+  /**
+   * {@code .} does not match line terminators.
+   */
+  private static boolean isLineTerminator(char c) {
+    return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+  }
+
+  /**
+   * Immutable trie node, children are sorted by char.
+   */
+  private static final class Node {
+
+    private final char[] chars;
+    private final Node[] children;
+    // the prefix ending at this node is followed by .* or .+
+    private final boolean anySuffix;
+    private final boolean nonEmptySuffix;
+
+    private Node(char[] chars, Node[] children, boolean anySuffix, boolean nonEmptySuffix) {
+      this.chars = chars;
+      this.children = children;
+      this.anySuffix = anySuffix;
+      this.nonEmptySuffix = nonEmptySuffix;
+    }
+
+    boolean matches(String address) {
+      final int length = address.length();
+      // the suffix checked so far has no line terminator
+      int clean = length;
+      Node node = this;
+      for (int i = 0; ; i++) {
+        if (node.anySuffix || (node.nonEmptySuffix && i < length)) {
+          // lazily scan the suffix, backwards, once
+          while (clean > i && !isLineTerminator(address.charAt(clean - 1))) {
+            clean--;
+          }
+          if (clean == i) {
+            return true;
+          }
+        }
+        if (i == length) {
+          return false;
+        }
+        final int idx = Arrays.binarySearch(node.chars, address.charAt(i));
+        if (idx < 0) {
+          return false;
+        }
+        node = node.children[idx];
+      }
+    }
+  }
+
+  private static final class Builder {
+
+    private final TreeMap<Character, Builder> children = new TreeMap<>();
+    private boolean anySuffix;
+    private boolean nonEmptySuffix;
+    private boolean empty = true;
+
+    void add(String prefix, boolean any) {
+      empty = false;
+      Builder node = this;
+      for (int i = 0; i < prefix.length(); i++) {
+        node = node.children.computeIfAbsent(prefix.charAt(i), c -> new Builder());
+      }
+      if (any) {
+        node.anySuffix = true;
+      } else {
+        node.nonEmptySuffix = true;
+      }
+    }
+
+    Node build() {
+      return empty ? null : freeze();
+    }
+
+    private Node freeze() {
+      final char[] chars = new char[children.size()];
+      final Node[] nodes = new Node[children.size()];
+      int i = 0;
+      for (Map.Entry<Character, Builder> entry : children.entrySet()) {
+        chars[i] = entry.getKey();
+        nodes[i++] = entry.getValue().freeze();
+      }
+      return new Node(chars, nodes, anySuffix, nonEmptySuffix);
+    }
+  }
+}
@@ -33,18 +33,25 @@ class BridgeEventImpl implements BridgeEvent {
   private final BridgeEventType type;
   private final JsonObject rawMessage;
   private final NetSocket socket;
-  private final Promise<Boolean> promise;
+  // only created when the event is given to the handler, the filter decides without it
+  private Promise<Boolean> promise;
 
   public BridgeEventImpl(BridgeEventType type, JsonObject rawMessage, NetSocket socket) {
     this.type = type;
     this.rawMessage = rawMessage;
     this.socket = socket;
-    this.promise = Promise.promise();
+  }
+
+  private Promise<Boolean> promise() {
+    if (promise == null) {
+      promise = Promise.promise();
+    }
+    return promise;
   }
 
   @Override
   public Future<Boolean> future() {
-    return promise.future();
+    return promise().future();
   }
 
   @Override
@@ -67,7 +74,7 @@ class BridgeEventImpl implements BridgeEvent {
 
   @Override
   public void handle(AsyncResult<Boolean> asyncResult) {
-    promise.handle(asyncResult);
+    promise().handle(asyncResult);
   }
 
   @Override
@@ -77,42 +84,42 @@ class BridgeEventImpl implements BridgeEvent {
 
   @Override
   public void complete(Boolean result) {
-    promise.complete(result);
+    promise().complete(result);
   }
 
   @Override
   public void complete() {
-    promise.complete();
+    promise().complete();
   }
 
   @Override
   public void fail(Throwable throwable) {
-    promise.fail(throwable);
+    promise().fail(throwable);
   }
 
   @Override
   public void fail(String failureMessage) {
-    promise.fail(failureMessage);
+    promise().fail(failureMessage);
   }
 
   @Override
   public boolean tryComplete(Boolean result) {
-    return promise.tryComplete(result);
+    return promise().tryComplete(result);
   }
 
   @Override
   public boolean tryComplete() {
-    return promise.tryComplete();
+    return promise().tryComplete();
   }
 
   @Override
   public boolean tryFail(Throwable cause) {
-    return promise.tryFail(cause);
+    return promise().tryFail(cause);
   }
 
   @Override
   public boolean tryFail(String failureMessage) {
-    return promise.tryFail(failureMessage);
+    return promise().tryFail(failureMessage);
   }
 
 }
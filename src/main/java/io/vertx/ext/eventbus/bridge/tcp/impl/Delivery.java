@@ -0,0 +1,72 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.eventbus.bridge.tcp.impl;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.Message;
+
+import java.util.function.Function;
+
+/**
+ * An event bus message on its way to one or many sockets. The frame is encoded by the first socket that writes it,
+ * the other sockets write the same buffer: writing a buffer does not consume it.
+ * <p>
+ * A reply to a request of the client is an already encoded frame without message.
+ */
+final class Delivery {
+
+  private final Message<?> message;
+  private volatile Buffer frame;
+
+  Delivery(Message<?> message) {
+    this.message = message;
+  }
+
+  Delivery(Buffer frame) {
+    this.message = null;
+    this.frame = frame;
+  }
+
+  /**
+   * @return the message, {@code null} for a reply
+   */
+  Message<?> message() {
+    return message;
+  }
+
+  /**
+   * @return whether an overflow policy can drop the delivery, only published messages can
+   */
+  boolean droppable() {
+    return message != null && !message.isSend();
+  }
+
+  /**
+   * @return the encoded frame, sockets may call this from different event loops
+   */
+  Buffer frame(Function<Message<?>, Buffer> encoder) {
+    Buffer result = frame;
+    if (result == null) {
+      synchronized (this) {
+        result = frame;
+        if (result == null) {
+          frame = result = encoder.apply(message);
+        }
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.eventbus.bridge.tcp.impl;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.ext.eventbus.bridge.tcp.spi.metrics.TcpEventBusBridgeMetrics;
+
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The event bus requests of a socket waiting for their response. Event bus requests cannot be cancelled, so when the
+ * socket is closed the response handlers are detached instead: a late response is ignored without being encoded and
+ * no longer keeps the socket reachable until the request times out.
+ * <p>
+ * At most {@code maxInflight} requests run at the same time, the following ones wait in a bounded queue until a
+ * response arrives. Requests are submitted and completed on the socket event loop.
+ */
+class InflightRequests {
+
+  private final Set<Request<?>> requests = ConcurrentHashMap.newKeySet();
+  private final ArrayDeque<Runnable> pending = new ArrayDeque<>();
+  private final int maxInflight;
+  private final int maxQueued;
+  private final TcpEventBusBridgeMetrics metrics;
+  private volatile boolean closed;
+  private Runnable emptyHandler;
+
+  /**
+   * @param maxInflight the max number of running requests, no limit when {@code <= 0}
+   * @param maxQueued the max number of requests waiting for a running one to complete
+   */
+  InflightRequests(int maxInflight, int maxQueued, TcpEventBusBridgeMetrics metrics) {
+    this.maxInflight = maxInflight;
+    this.maxQueued = maxQueued;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Start a request now, or once another request completes when the limit is reached. {@code start} must issue
+   * exactly one request whose response handler is given by {@link #track(String, Handler)}.
+   *
+   * @return {@code false} when the request has been rejected because the queue is full
+   */
+  boolean submit(String address, Runnable start) {
+    if (closed) {
+      return true;
+    }
+    if (maxInflight <= 0 || (requests.size() < maxInflight && pending.isEmpty())) {
+      start.run();
+      return true;
+    }
+    if (pending.size() < maxQueued) {
+      pending.add(start);
+      return true;
+    }
+    if (metrics != null) {
+      metrics.requestRejected(address);
+    }
+    return false;
+  }
+
+  /**
+   * @return the response handler to give to the request, it only calls {@code handler} while the socket is open
+   */
+  <T> Handler<AsyncResult<T>> track(String address, Handler<AsyncResult<T>> handler) {
+    final Request<T> request = new Request<>(address, handler);
+    requests.add(request);
+    if (metrics != null) {
+      metrics.requestStarted(address);
+    }
+    if (closed) {
+      // closed concurrently
+      cancel(request);
+    }
+    return request;
+  }
+
+  /**
+   * Ignore the responses of all the requests and drop the queued ones, the socket is gone.
+   */
+  void cancelAll() {
+    closed = true;
+    pending.clear();
+    for (Request<?> request : requests) {
+      cancel(request);
+    }
+  }
+
+  /**
+   * Run {@code handler} once no request is running nor queued, now if there is none.
+   */
+  void whenEmpty(Runnable handler) {
+    if (requests.isEmpty() && pending.isEmpty()) {
+      handler.run();
+    } else {
+      emptyHandler = handler;
+    }
+  }
+
+  /**
+   * @return the number of running requests
+   */
+  int size() {
+    return requests.size();
+  }
+
+  private void cancel(Request<?> request) {
+    if (requests.remove(request)) {
+      request.handler = null;
+      if (metrics != null) {
+        metrics.requestCancelled(request.address);
+      }
+    }
+  }
+
+  private void ended(Request<?> request) {
+    if (metrics != null) {
+      metrics.requestEnded(request.address, System.nanoTime() - request.start);
+    }
+  }
+
+  private final class Request<T> implements Handler<AsyncResult<T>> {
+
+    private final String address;
+    private final long start;
+    private volatile Handler<AsyncResult<T>> handler;
+
+    Request(String address, Handler<AsyncResult<T>> handler) {
+      this.address = address;
+      this.start = metrics == null ? 0 : System.nanoTime();
+      this.handler = handler;
+    }
+
+    @Override
+    public void handle(AsyncResult<T> res) {
+      final Handler<AsyncResult<T>> handler = this.handler;
+      if (handler != null && requests.remove(this)) {
+        this.handler = null;
+        ended(this);
+        handler.handle(res);
+        // a slot is free
+        final Runnable next = pending.poll();
+        if (next != null) {
+          next.run();
+        } else if (emptyHandler != null && requests.isEmpty()) {
+          final Runnable empty = emptyHandler;
+          emptyHandler = null;
+          empty.run();
+        }
+      }
+    }
+  }
+}
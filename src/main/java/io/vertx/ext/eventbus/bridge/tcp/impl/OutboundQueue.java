@@ -0,0 +1,292 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.eventbus.bridge.tcp.impl;
+
+import io.netty.channel.WriteBufferWaterMark;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.internal.ContextInternal;
+import io.vertx.core.internal.logging.Logger;
+import io.vertx.core.internal.logging.LoggerFactory;
+import io.vertx.core.internal.net.NetSocketInternal;
+import io.vertx.core.net.NetSocket;
+import io.vertx.ext.eventbus.bridge.tcp.OverflowPolicy;
+import io.vertx.ext.eventbus.bridge.tcp.TcpEventBusBridgeOptions;
+import io.vertx.ext.eventbus.bridge.tcp.spi.metrics.TcpEventBusBridgeMetrics;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Event bus messages on their way to a socket. Messages are written as long as the socket write queue accepts them,
+ * once it is full they are queued until the socket drains. The socket is paused when {@code maxQueuedMessages} are
+ * queued, or as soon as it is congested with {@link OverflowPolicy#BLOCK}, so point-to-point messages stay bounded. The
+ * overflow policy applies to the published messages that still arrive.
+ * <p>
+ * This is the bulk lane of the socket: control frames ({@code pong}, {@code err}) and, unless configured otherwise,
+ * replies to the requests of the client are written straight to the socket, ahead of the queued messages. Frames
+ * already in the socket write queue cannot be overtaken, its water marks bound how long a control frame waits.
+ * <p>
+ * All methods but {@link #dispatch(Delivery)} and {@link #revoke(String)} are called from the socket event loop.
+ */
+class OutboundQueue {
+
+  private static final Logger log = LoggerFactory.getLogger(OutboundQueue.class);
+
+  private final NetSocket socket;
+  private final ContextInternal context;
+  private final SharedConsumers consumers;
+  private final Set<String> addresses = ConcurrentHashMap.newKeySet();
+  private final Handler<Delivery> writer;
+  private final OverflowPolicy policy;
+  private final int maxQueuedMessages;
+  private final TcpEventBusBridgeMetrics metrics;
+
+  private final ArrayDeque<Delivery> pending = new ArrayDeque<>();
+  // read by the shared consumers from any thread
+  private volatile boolean paused;
+  private boolean closed;
+  private Runnable drainedHandler;
+  private Handler<String> revokedHandler;
+
+  OutboundQueue(NetSocket socket, SharedConsumers consumers, Handler<Delivery> writer, TcpEventBusBridgeOptions options) {
+    this.socket = socket;
+    this.context = ContextInternal.current();
+    this.consumers = consumers;
+    this.writer = writer;
+    this.policy = options.getOverflowPolicy();
+    this.maxQueuedMessages = options.getMaxQueuedMessages();
+    this.metrics = options.getMetrics();
+
+    final int high = options.getWriteQueueHighWaterMark();
+    if (high >= 0) {
+      final int low = options.getWriteQueueLowWaterMark();
+      if (low >= 0 && socket instanceof NetSocketInternal) {
+        ((NetSocketInternal) socket).channelHandlerContext().channel().config()
+          .setWriteBufferWaterMark(new WriteBufferWaterMark(Math.min(low, high), high));
+      } else {
+        socket.setWriteQueueMaxSize(high);
+      }
+    }
+
+    socket.drainHandler(v -> drain());
+  }
+
+  /**
+   * Register the socket to the messages of an address.
+   *
+   * @return {@code false} when the socket is already registered
+   */
+  boolean register(String address) {
+    if (consumers.register(address, this)) {
+      addresses.add(address);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * @return {@code false} when the socket is not registered to the address
+   */
+  boolean unregister(String address) {
+    if (addresses.remove(address)) {
+      consumers.unregister(address, this);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Set the handler notified with the addresses the socket has been unregistered from because they are no longer
+   * permitted.
+   */
+  OutboundQueue revokedHandler(Handler<String> handler) {
+    this.revokedHandler = handler;
+    return this;
+  }
+
+  /**
+   * Unregister the socket from an address that is no longer permitted, can be called from any thread.
+   */
+  void revoke(String address) {
+    final Handler<Void> action = v -> {
+      if (unregister(address) && revokedHandler != null) {
+        revokedHandler.handle(address);
+      }
+    };
+    if (context == null || context.inThread()) {
+      action.handle(null);
+    } else {
+      context.runOnContext(action);
+    }
+  }
+
+  boolean registered(String address) {
+    return addresses.contains(address);
+  }
+
+  /**
+   * @return the number of addresses the socket is registered to
+   */
+  int size() {
+    return addresses.size();
+  }
+
+  void unregisterAll() {
+    for (String address : addresses) {
+      unregister(address);
+    }
+  }
+
+  /**
+   * Unregister the socket from all its addresses and forget the queued messages, the socket is gone.
+   */
+  void close() {
+    unregisterAll();
+    closed = true;
+    queued(-pending.size());
+    pending.clear();
+  }
+
+  /**
+   * Deliver a message from a shared consumer, which may run on another event loop than the socket.
+   */
+  void dispatch(Delivery delivery) {
+    // the consumers run on duplicates of the socket context, deliver now so that a pause applies to the next message
+    if (context == null || context.inThread()) {
+      deliver(delivery);
+    } else {
+      context.runOnContext(v -> deliver(delivery));
+    }
+  }
+
+  /**
+   * Write a reply frame behind the queued messages.
+   */
+  void reply(Buffer frame) {
+    deliver(new Delivery(frame));
+  }
+
+  /**
+   * Run {@code handler} once the queued messages have been written, now if there is none.
+   */
+  void whenDrained(Runnable handler) {
+    if (pending.isEmpty()) {
+      handler.run();
+    } else {
+      drainedHandler = handler;
+    }
+  }
+
+  /**
+   * @return {@code true} when the socket takes no more point-to-point messages
+   */
+  boolean paused() {
+    return paused;
+  }
+
+  /**
+   * Write the message to the socket or queue it when the socket is congested.
+   */
+  void deliver(Delivery msg) {
+    if (closed) {
+      return;
+    }
+
+    if (pending.isEmpty() && !socket.writeQueueFull()) {
+      writer.handle(msg);
+      return;
+    }
+
+    if (pending.size() < maxQueuedMessages || !msg.droppable()) {
+      // point-to-point messages and replies are never dropped, the socket takes no more of them once paused
+      pending.add(msg);
+      queued(1);
+      if (policy == OverflowPolicy.BLOCK || pending.size() >= maxQueuedMessages) {
+        pause();
+      }
+      return;
+    }
+
+    // the shared consumer keeps running for the other sockets of the address
+    switch (policy) {
+      case BLOCK:
+      case DROP_NEWEST:
+        dropped(msg);
+        break;
+      case DROP_OLDEST:
+        final Iterator<Delivery> it = pending.iterator();
+        while (it.hasNext()) {
+          final Delivery queued = it.next();
+          if (queued.droppable()) {
+            it.remove();
+            dropped(queued);
+            pending.add(msg);
+            return;
+          }
+        }
+        // only point-to-point messages are queued
+        dropped(msg);
+        break;
+      case DISCONNECT:
+        log.warn("Closing socket " + socket.remoteAddress() + ", write queue is full");
+        closed = true;
+        queued(-pending.size());
+        pending.clear();
+        socket.close();
+        break;
+    }
+  }
+
+  private void drain() {
+    int written = 0;
+    while (!pending.isEmpty() && !socket.writeQueueFull()) {
+      writer.handle(pending.poll());
+      written++;
+    }
+    queued(-written);
+    if (pending.isEmpty() && paused) {
+      paused = false;
+      addresses.forEach(consumers::resume);
+    }
+    if (pending.isEmpty() && drainedHandler != null) {
+      final Runnable drained = drainedHandler;
+      drainedHandler = null;
+      drained.run();
+    }
+  }
+
+  private void pause() {
+    if (!paused) {
+      paused = true;
+      addresses.forEach(consumers::pause);
+    }
+  }
+
+  private void queued(int delta) {
+    if (metrics != null && delta != 0) {
+      metrics.writeQueueChanged(delta);
+    }
+  }
+
+  private void dropped(Delivery msg) {
+    if (metrics != null) {
+      metrics.messageDropped(msg.message().address());
+    }
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.eventbus.bridge.tcp.impl;
+
+import io.netty.channel.EventLoop;
+import io.vertx.core.Vertx;
+import io.vertx.core.internal.ContextInternal;
+import io.vertx.core.internal.logging.Logger;
+import io.vertx.core.internal.logging.LoggerFactory;
+import io.vertx.core.net.NetSocket;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Closes the sockets whose client has not sent any frame for the ping timeout. Each event loop has a single timer
+ * checking all its sockets, a frame only sets a flag.
+ * <p>
+ * A socket is registered, touched and unregistered from its event loop, so the sockets of an event loop are never
+ * accessed concurrently.
+ */
+class PingTimeouts {
+
+  private static final Logger log = LoggerFactory.getLogger(PingTimeouts.class);
+
+  // number of checks per timeout
+  private static final int CHECKS = 4;
+
+  private final Vertx vertx;
+  private final long timeout;
+  private final long period;
+  private final ConcurrentMap<EventLoop, Sweeper> sweepers = new ConcurrentHashMap<>();
+
+  PingTimeouts(Vertx vertx, long timeout) {
+    this.vertx = vertx;
+    this.timeout = timeout;
+    this.period = Math.max(1, timeout / CHECKS);
+  }
+
+  /**
+   * Watch a socket, must be called from its event loop.
+   */
+  Idle register(NetSocket socket) {
+    final EventLoop eventLoop = ((ContextInternal) vertx.getOrCreateContext()).nettyEventLoop();
+    final Idle idle = new Idle(socket, eventLoop);
+    sweepers.computeIfAbsent(eventLoop, key -> new Sweeper(key)).add(idle);
+    return idle;
+  }
+
+  final class Idle {
+
+    private final NetSocket socket;
+    private final EventLoop eventLoop;
+    private boolean active = true;
+    private long idle;
+
+    private Idle(NetSocket socket, EventLoop eventLoop) {
+      this.socket = socket;
+      this.eventLoop = eventLoop;
+    }
+
+    /**
+     * The client has sent a frame.
+     */
+    void touch() {
+      active = true;
+    }
+
+    /**
+     * Stop watching the socket, it is closed.
+     */
+    void unregister() {
+      final Sweeper sweeper = sweepers.get(eventLoop);
+      if (sweeper != null) {
+        sweeper.remove(this);
+      }
+    }
+  }
+
+  private final class Sweeper {
+
+    private final EventLoop eventLoop;
+    private final Set<Idle> sockets = new HashSet<>();
+    private long timerId = -1;
+
+    Sweeper(EventLoop eventLoop) {
+      this.eventLoop = eventLoop;
+    }
+
+    void add(Idle idle) {
+      sockets.add(idle);
+      if (timerId == -1) {
+        // runs on the current context, which is on this event loop
+        timerId = vertx.setPeriodic(period, id -> sweep());
+      }
+    }
+
+    void remove(Idle idle) {
+      if (sockets.remove(idle) && sockets.isEmpty()) {
+        vertx.cancelTimer(timerId);
+        timerId = -1;
+        sweepers.remove(eventLoop, this);
+      }
+    }
+
+    private void sweep() {
+      List<Idle> expired = null;
+      for (Idle idle : sockets) {
+        if (idle.active) {
+          idle.active = false;
+          idle.idle = 0;
+        } else if ((idle.idle += period) >= timeout) {
+          if (expired == null) {
+            expired = new ArrayList<>();
+          }
+          expired.add(idle);
+        }
+      }
+      if (expired != null) {
+        for (Idle idle : expired) {
+          log.debug("Closing socket " + idle.socket.remoteAddress() + ", no frame received for " + timeout + "ms");
+          remove(idle);
+          idle.socket.close();
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.eventbus.bridge.tcp.impl;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.net.NetSocket;
+import io.vertx.ext.bridge.PermittedOptions;
+import io.vertx.ext.eventbus.bridge.tcp.RateLimitOptions;
+import io.vertx.ext.eventbus.bridge.tcp.RateLimitPolicy;
+import io.vertx.ext.eventbus.bridge.tcp.TcpEventBusBridgeOptions;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The rate limits of a socket: its frames and bytes, and the addresses of its {@code send} and {@code publish} frames
+ * whose buckets are shared by all the sockets of the bridge.
+ * <p>
+ * With {@link RateLimitPolicy#PAUSE} the traffic over a limit is accepted and the socket stops being read until the
+ * buckets allow it again, with {@link RateLimitPolicy#REJECT} it is rejected. Bytes are counted before frames are
+ * parsed, so they cannot be rejected: the frames are rejected until the byte bucket refills. Checking a limit does not
+ * allocate.
+ * <p>
+ * All methods are called from the socket event loop.
+ */
+class RateLimiter {
+
+  /**
+   * A rate limit of the addresses matched by the rule, shared by all the sockets.
+   */
+  static final class Rule {
+
+    private final AddressMatcher matcher;
+    private final TokenBucket bucket;
+
+    private Rule(AddressMatcher matcher, TokenBucket bucket) {
+      this.matcher = matcher;
+      this.bucket = bucket;
+    }
+  }
+
+  static Rule[] compile(List<RateLimitOptions> limits) {
+    return limits.stream()
+      .filter(limit -> limit.getRate() > 0)
+      .map(limit -> new Rule(
+        AddressMatcher.compile(Collections.<PermittedOptions>singletonList(limit)),
+        new TokenBucket(limit.getRate(), limit.getBurst() > 0 ? limit.getBurst() : limit.getRate())))
+      .toArray(Rule[]::new);
+  }
+
+  /**
+   * @return whether any limit applies to the sockets
+   */
+  static boolean enabled(TcpEventBusBridgeOptions options, Rule[] rules) {
+    return options.getMaxFrameRate() > 0 || options.getMaxByteRate() > 0 || rules.length > 0;
+  }
+
+  private final Vertx vertx;
+  private final NetSocket socket;
+  private final boolean reject;
+  private final TokenBucket frames;
+  private final TokenBucket bytes;
+  private final Rule[] rules;
+
+  // when the socket can be read again
+  private long pausedUntil;
+  private long timerId = -1;
+  // the byte bucket is empty until then
+  private long bytesAvailableAt;
+
+  RateLimiter(Vertx vertx, NetSocket socket, TcpEventBusBridgeOptions options, Rule[] rules) {
+    this.vertx = vertx;
+    this.socket = socket;
+    this.reject = options.getRateLimitPolicy() == RateLimitPolicy.REJECT;
+    this.frames = options.getMaxFrameRate() > 0 ? new TokenBucket(options.getMaxFrameRate(), options.getMaxFrameRate()) : null;
+    this.bytes = options.getMaxByteRate() > 0 ? new TokenBucket(options.getMaxByteRate(), options.getMaxByteRate()) : null;
+    this.rules = rules;
+  }
+
+  /**
+   * Count the bytes read from the socket.
+   */
+  void received(int length) {
+    if (bytes != null) {
+      final long wait = bytes.acquire(length);
+      if (wait > 0) {
+        if (reject) {
+          bytesAvailableAt = System.nanoTime() + wait;
+        } else {
+          pause(wait);
+        }
+      }
+    }
+  }
+
+  /**
+   * Count a frame carrying {@code count} frames, a batch costs as much as its frames sent one by one.
+   *
+   * @return {@code false} when the frame is rejected, as a whole
+   */
+  boolean acceptFrames(int count) {
+    if (reject) {
+      if (bytesAvailableAt != 0 && System.nanoTime() - bytesAvailableAt < 0) {
+        return false;
+      }
+      return frames == null || frames.tryAcquire(count);
+    }
+    if (frames != null) {
+      pause(frames.acquire(count));
+    }
+    return true;
+  }
+
+  /**
+   * @return {@code false} when a permitted {@code send} or {@code publish} frame to the address is rejected
+   */
+  boolean acceptAddress(String address) {
+    for (int i = 0; i < rules.length; i++) {
+      final Rule rule = rules[i];
+      if (rule.matcher.matches(address)) {
+        if (reject) {
+          if (!rule.bucket.tryAcquire(1)) {
+            // give back the tokens of the previous rules, the frame is not sent
+            for (int j = 0; j < i; j++) {
+              if (rules[j].matcher.matches(address)) {
+                rules[j].bucket.release(1);
+              }
+            }
+            return false;
+          }
+        } else {
+          pause(rule.bucket.acquire(1));
+        }
+      }
+    }
+    return true;
+  }
+
+  private void pause(long wait) {
+    if (wait <= 0) {
+      return;
+    }
+    final long until = System.nanoTime() + wait;
+    if (timerId != -1 && until - pausedUntil <= 0) {
+      return;
+    }
+    pausedUntil = until;
+    if (timerId == -1) {
+      socket.pause();
+    } else {
+      vertx.cancelTimer(timerId);
+    }
+    timerId = vertx.setTimer(Math.max(1, TimeUnit.NANOSECONDS.toMillis(wait)), id -> {
+      timerId = -1;
+      socket.resume();
+    });
+  }
+
+  /**
+   * Stop the pause timer, the socket is closed.
+   */
+  void close() {
+    if (timerId != -1) {
+      vertx.cancelTimer(timerId);
+      timerId = -1;
+    }
+  }
+}
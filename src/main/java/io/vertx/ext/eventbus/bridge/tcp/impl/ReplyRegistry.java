@@ -0,0 +1,142 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.eventbus.bridge.tcp.impl;
+
+import io.vertx.core.eventbus.Message;
+import io.vertx.ext.eventbus.bridge.tcp.spi.metrics.TcpEventBusBridgeMetrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The messages of a socket waiting for a reply from the client, by reply address. A message is forgotten once it has
+ * been replied, when its deadline has passed or when the socket is closed, so clients that never reply do not leak.
+ * <p>
+ * The deadline is the {@code timeout} header of the message when present, the sender would not wait longer, or the
+ * configured reply timeout.
+ */
+class ReplyRegistry {
+
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  private final TimerWheel wheel;
+  private final long timeout;
+  private final TcpEventBusBridgeMetrics metrics;
+
+  /**
+   * @param timeout the default reply timeout in milliseconds, entries never expire when {@code <= 0}
+   */
+  ReplyRegistry(TimerWheel wheel, long timeout, TcpEventBusBridgeMetrics metrics) {
+    this.wheel = wheel;
+    this.timeout = timeout;
+    this.metrics = metrics;
+  }
+
+  void put(String replyAddress, Message<?> message) {
+    final long timeout = timeout(message);
+    final Entry entry = new Entry(replyAddress, message, timeout > 0 ? TimerWheel.now() + timeout : 0);
+    final Entry previous = entries.put(replyAddress, entry);
+    if (previous != null) {
+      wheel.cancel(previous);
+    }
+    if (timeout > 0) {
+      wheel.schedule(entry);
+    }
+  }
+
+  boolean contains(String replyAddress) {
+    return entries.containsKey(replyAddress);
+  }
+
+  /**
+   * @return the message waiting for a reply, it keeps waiting
+   */
+  Message<?> get(String replyAddress) {
+    final Entry entry = entries.get(replyAddress);
+    return entry != null ? entry.message : null;
+  }
+
+  /**
+   * @return the message waiting for a reply, replies are a one time off operation
+   */
+  Message<?> remove(String replyAddress) {
+    final Entry entry = entries.remove(replyAddress);
+    if (entry == null) {
+      return null;
+    }
+    // do not hold the message until the deadline
+    wheel.cancel(entry);
+    return entry.message;
+  }
+
+  /**
+   * Forget all the messages, the socket is gone.
+   */
+  void clear() {
+    int orphaned = 0;
+    for (String replyAddress : entries.keySet()) {
+      final Entry entry = entries.remove(replyAddress);
+      if (entry != null) {
+        wheel.cancel(entry);
+        orphaned++;
+      }
+    }
+    if (orphaned > 0 && metrics != null) {
+      metrics.repliesOrphaned(orphaned);
+    }
+  }
+
+  int size() {
+    return entries.size();
+  }
+
+  private long timeout(Message<?> message) {
+    final String header = message.headers().get("timeout");
+    if (header != null) {
+      try {
+        return Long.parseLong(header);
+      } catch (NumberFormatException e) {
+        // not a timeout, use the default
+      }
+    }
+    return timeout;
+  }
+
+  private final class Entry extends TimerWheel.Timeout {
+
+    private final String replyAddress;
+    private final Message<?> message;
+    private final long deadline;
+
+    Entry(String replyAddress, Message<?> message, long deadline) {
+      this.replyAddress = replyAddress;
+      this.message = message;
+      this.deadline = deadline;
+    }
+
+    @Override
+    long deadline() {
+      return deadline;
+    }
+
+    @Override
+    void expire() {
+      // the entry may have been replied or replaced in the meantime
+      if (entries.remove(replyAddress, this) && metrics != null) {
+        metrics.replyExpired(message.address());
+      }
+    }
+  }
+}
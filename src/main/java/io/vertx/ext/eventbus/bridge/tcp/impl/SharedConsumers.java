@@ -0,0 +1,221 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.eventbus.bridge.tcp.impl;
+
+import io.vertx.core.Handler;
+import io.vertx.core.eventbus.EventBus;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.MessageConsumer;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * One event bus consumer per address, shared by all the sockets of the bridge registered to that address. Published
+ * messages are delivered to every socket, point-to-point messages to a single socket in round-robin order.
+ * <p>
+ * A socket whose queue is full is paused (see {@link OutboundQueue}): it is skipped by the round-robin and its overflow
+ * policy applies to the published messages. The consumer of an address is only paused when all its sockets are, so a
+ * slow socket never holds back the others.
+ */
+class SharedConsumers {
+
+  private final EventBus eb;
+  private final ConcurrentMap<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+
+  SharedConsumers(EventBus eb) {
+    this.eb = eb;
+  }
+
+  /**
+   * @return {@code false} when the socket was already registered to the address
+   */
+  boolean register(String address, OutboundQueue queue) {
+    final boolean[] added = new boolean[1];
+    subscriptions.compute(address, (key, subscription) -> {
+      if (subscription == null) {
+        subscription = new Subscription();
+        subscription.consumer = eb.consumer(key, subscription);
+      }
+      added[0] = subscription.add(queue);
+      if (added[0]) {
+        if (queue.paused()) {
+          subscription.pause();
+        } else {
+          subscription.update();
+        }
+      }
+      return subscription;
+    });
+    return added[0];
+  }
+
+  /**
+   * @return {@code false} when the socket was not registered to the address
+   */
+  boolean unregister(String address, OutboundQueue queue) {
+    final boolean[] removed = new boolean[1];
+    subscriptions.computeIfPresent(address, (key, subscription) -> {
+      removed[0] = subscription.remove(queue);
+      if (subscription.queues.length == 0) {
+        subscription.consumer.unregister();
+        return null;
+      }
+      if (removed[0]) {
+        if (queue.paused()) {
+          subscription.resume();
+        } else {
+          subscription.update();
+        }
+      }
+      return subscription;
+    });
+    return removed[0];
+  }
+
+  void pause(String address) {
+    final Subscription subscription = subscriptions.get(address);
+    if (subscription != null) {
+      subscription.pause();
+    }
+  }
+
+  void resume(String address) {
+    final Subscription subscription = subscriptions.get(address);
+    if (subscription != null) {
+      subscription.resume();
+    }
+  }
+
+  /**
+   * Unregister the sockets from the addresses that are no longer permitted.
+   */
+  void revoke(Predicate<String> permitted) {
+    subscriptions.forEach((address, subscription) -> {
+      if (!permitted.test(address)) {
+        for (OutboundQueue queue : subscription.queues) {
+          queue.revoke(address);
+        }
+      }
+    });
+  }
+
+  /**
+   * Unregister all the consumers at once, the bridge is closed.
+   */
+  void unregisterAll() {
+    subscriptions.values().forEach(subscription -> subscription.consumer.unregister());
+    subscriptions.clear();
+  }
+
+  /**
+   * @return the number of event bus consumers
+   */
+  int size() {
+    return subscriptions.size();
+  }
+
+  private static final class Subscription implements Handler<Message<Object>> {
+
+    private static final OutboundQueue[] EMPTY = new OutboundQueue[0];
+
+    // copy on write, only modified under the map lock of the address
+    private volatile OutboundQueue[] queues = EMPTY;
+    private final AtomicInteger next = new AtomicInteger();
+    private MessageConsumer<Object> consumer;
+    // number of paused sockets
+    private int paused;
+    private boolean consumerPaused;
+
+    @Override
+    public void handle(Message<Object> msg) {
+      final OutboundQueue[] queues = this.queues;
+      if (queues.length == 0) {
+        return;
+      }
+      // the frame is encoded once for all the sockets
+      final Delivery delivery = new Delivery(msg);
+      if (msg.isSend()) {
+        // the next socket that is not paused, if any
+        final int start = next.getAndIncrement();
+        OutboundQueue target = queues[Math.floorMod(start, queues.length)];
+        for (int i = 1; i < queues.length && target.paused(); i++) {
+          target = queues[Math.floorMod(start + i, queues.length)];
+        }
+        target.dispatch(delivery);
+        return;
+      }
+      for (OutboundQueue queue : queues) {
+        queue.dispatch(delivery);
+      }
+    }
+
+    boolean add(OutboundQueue queue) {
+      final OutboundQueue[] queues = this.queues;
+      for (OutboundQueue registered : queues) {
+        if (registered == queue) {
+          return false;
+        }
+      }
+      final OutboundQueue[] copy = Arrays.copyOf(queues, queues.length + 1);
+      copy[queues.length] = queue;
+      this.queues = copy;
+      return true;
+    }
+
+    boolean remove(OutboundQueue queue) {
+      final OutboundQueue[] queues = this.queues;
+      for (int i = 0; i < queues.length; i++) {
+        if (queues[i] == queue) {
+          final OutboundQueue[] copy = new OutboundQueue[queues.length - 1];
+          System.arraycopy(queues, 0, copy, 0, i);
+          System.arraycopy(queues, i + 1, copy, i, copy.length - i);
+          this.queues = copy;
+          return true;
+        }
+      }
+      return false;
+    }
+
+    synchronized void pause() {
+      paused++;
+      update();
+    }
+
+    synchronized void resume() {
+      paused--;
+      update();
+    }
+
+    /**
+     * Pause the consumer when none of the sockets can take messages, resume it otherwise.
+     */
+    synchronized void update() {
+      final boolean pause = paused > 0 && paused >= queues.length;
+      if (pause != consumerPaused) {
+        consumerPaused = pause;
+        if (pause) {
+          consumer.pause();
+        } else {
+          consumer.resume();
+        }
+      }
+    }
+  }
+}
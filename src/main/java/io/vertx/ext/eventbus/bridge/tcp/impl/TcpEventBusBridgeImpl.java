@@ -19,9 +19,12 @@ import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.eventbus.*;
 import io.vertx.core.internal.logging.Logger;
 import io.vertx.core.internal.logging.LoggerFactory;
+import io.vertx.core.internal.net.NetSocketInternal;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.core.net.NetServer;
 import io.vertx.core.net.NetServerOptions;
@@ -32,17 +35,26 @@ import io.vertx.ext.bridge.BridgeOptions;
 import io.vertx.ext.bridge.PermittedOptions;
 import io.vertx.ext.eventbus.bridge.tcp.BridgeEvent;
 import io.vertx.ext.eventbus.bridge.tcp.TcpEventBusBridge;
+import io.vertx.ext.eventbus.bridge.tcp.TcpEventBusBridgeOptions;
+import io.vertx.ext.eventbus.bridge.tcp.impl.protocol.FrameCodecs;
+import io.vertx.ext.eventbus.bridge.tcp.impl.protocol.FrameDeflater;
 import io.vertx.ext.eventbus.bridge.tcp.impl.protocol.FrameParser;
+import io.vertx.ext.eventbus.bridge.tcp.impl.protocol.FrameTooLargeException;
+import io.vertx.ext.eventbus.bridge.tcp.spi.FrameCodec;
+import io.vertx.ext.eventbus.bridge.tcp.spi.metrics.TcpEventBusBridgeMetrics;
 
-import java.util.HashMap;
-import java.util.Iterator;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
+import static io.vertx.ext.eventbus.bridge.tcp.impl.protocol.FrameHelper.encodeBinaryFrame;
+import static io.vertx.ext.eventbus.bridge.tcp.impl.protocol.FrameHelper.encodeFrame;
+import static io.vertx.ext.eventbus.bridge.tcp.impl.protocol.FrameHelper.parseMsgHeaders;
 import static io.vertx.ext.eventbus.bridge.tcp.impl.protocol.FrameHelper.sendErrFrame;
 import static io.vertx.ext.eventbus.bridge.tcp.impl.protocol.FrameHelper.sendFrame;
 
@@ -55,18 +67,69 @@ public class TcpEventBusBridgeImpl implements TcpEventBusBridge {
 
   private static final Logger log = LoggerFactory.getLogger(TcpEventBusBridgeImpl.class);
 
+  private static final ReplyException TOO_MANY_REQUESTS =
+    new ReplyException(ReplyFailure.ERROR, -1, "too_many_requests", false);
+
+  // resolution of the reply timeouts in milliseconds
+  private static final long REPLY_TIMEOUT_TICK = 100;
+
+  private final Vertx vertx;
   private final EventBus eb;
+  private final SharedConsumers consumers;
+  // expires the messages the clients never reply to
+  private final TimerWheel timeouts;
+  // closes the sockets of silent clients, null when disabled
+  private final PingTimeouts pingTimeouts;
+  // admission control, the rate limit is null when disabled
+  private final AtomicInteger connections = new AtomicInteger();
+  private final TokenBucket acceptRate;
+  private final RateLimiter.Rule[] rateLimitRules;
   private final NetServer server;
 
-  private final Map<String, Pattern> compiledREs = new HashMap<>();
-  private final BridgeOptions options;
+  private final TcpEventBusBridgeOptions options;
+  private final TcpEventBusBridgeMetrics metrics;
+  // counts the bytes and frames of the connections, null when metrics are disabled
+  private final TrafficMetrics trafficMetrics;
+  private final FrameCodec codec;
+  // swapped as a whole when the permissions are updated
+  private volatile Permissions permissions;
   private final Handler<BridgeEvent> bridgeEventHandler;
+  private final Predicate<BridgeEvent> bridgeEventFilter;
+  // the event types given to the hook, null when all of them
+  private final Set<BridgeEventType> hookedTypes;
+  // the addresses of the events given to the hook, null when all of them
+  private final AddressMatcher hookedAddresses;
 
 
   public TcpEventBusBridgeImpl(Vertx vertx, BridgeOptions options, NetServerOptions netServerOptions, Handler<BridgeEvent> eventHandler) {
+    this.vertx = vertx;
     this.eb = vertx.eventBus();
-    this.options = options != null ? options : new BridgeOptions();
+    this.consumers = new SharedConsumers(eb);
+    this.timeouts = new TimerWheel(vertx, REPLY_TIMEOUT_TICK);
+    if (options == null) {
+      this.options = new TcpEventBusBridgeOptions();
+    } else if (options instanceof TcpEventBusBridgeOptions) {
+      this.options = (TcpEventBusBridgeOptions) options;
+    } else {
+      // plain bridge options, only permissions are present
+      this.options = new TcpEventBusBridgeOptions()
+        .setInboundPermitteds(options.getInboundPermitteds())
+        .setOutboundPermitteds(options.getOutboundPermitteds());
+    }
+    this.metrics = this.options.getMetrics();
+    this.trafficMetrics = metrics == null ? null : new TrafficMetrics(metrics);
+    this.codec = FrameCodecs.lookup(this.options.getCodec());
+    this.permissions = new Permissions(this.options);
     this.bridgeEventHandler = eventHandler;
+    this.bridgeEventFilter = this.options.getBridgeEventFilter();
+    final Set<BridgeEventType> eventTypes = this.options.getBridgeEventTypes();
+    this.hookedTypes = eventTypes == null || eventTypes.isEmpty() ? null : EnumSet.copyOf(eventTypes);
+    final List<PermittedOptions> eventPermitteds = this.options.getBridgeEventPermitteds();
+    this.hookedAddresses = eventPermitteds == null || eventPermitteds.isEmpty() ? null : AddressMatcher.compile(eventPermitteds);
+    this.pingTimeouts = this.options.getPingTimeout() > 0 ? new PingTimeouts(vertx, this.options.getPingTimeout()) : null;
+    final int maxConnectionRate = this.options.getMaxConnectionRate();
+    this.acceptRate = maxConnectionRate > 0 ? new TokenBucket(maxConnectionRate, maxConnectionRate) : null;
+    this.rateLimitRules = RateLimiter.compile(this.options.getRateLimits());
 
     server = vertx.createNetServer(netServerOptions == null ? new NetServerOptions() : netServerOptions);
     server.connectHandler(this::handler);
@@ -92,9 +155,12 @@ public class TcpEventBusBridgeImpl implements TcpEventBusBridge {
     return server.listen(port, address).map(this);
   }
 
-  private void doSendOrPub(NetSocket socket, String address, JsonObject msg, Map<String,
-    MessageConsumer<?>> registry, Map<String, Message<?>> replies) {
-    final Object body = msg.getValue("body");
+  /**
+   * @return {@code false} when the operation has been rejected and an error frame has been sent
+   */
+  private boolean doSendOrPub(NetSocket socket, String address, JsonObject msg, ReplyRegistry replies,
+                              OutboundQueue outbound, InflightRequests inflight, RateLimiter limiter) {
+    final Object body = body(msg);
     final JsonObject headers = msg.getJsonObject("headers");
 
 
@@ -105,250 +171,637 @@ public class TcpEventBusBridgeImpl implements TcpEventBusBridge {
     switch (type) {
       case "send":
         if (checkMatches(true, address, replies)) {
+          if (!acceptAddress(socket, address, limiter)) {
+            return false;
+          }
           final String replyAddress = msg.getString("replyAddress");
 
           if (replyAddress != null) {
             // reply address is not null, it is a request from TCP endpoint that will wait for a response
-            eb.request(address, body, deliveryOptions).onComplete((AsyncResult<Message<Object>> res1) -> {
-              if (res1.failed()) {
-                sendErrFrame(address, replyAddress, (ReplyException) res1.cause(), socket);
-              } else {
-                final Message<?> response = res1.result();
-                final JsonObject responseHeaders = new JsonObject();
-
-                // clone the headers from / to
-                for (Map.Entry<String, String> entry : response.headers()) {
-                  responseHeaders.put(entry.getKey(), entry.getValue());
-                }
-
-                if (response.replyAddress() != null) {
-                  replies.put(response.replyAddress(), response);
-                }
-
-                sendFrame("message", replyAddress, response.replyAddress(), responseHeaders, true, response.body(), socket);
-              }
-            });
+            // over the in-flight limit requests wait for a response, or are rejected once the queue is full
+            final String metricsAddress = metricsAddress(address, replies.get(address));
+            if (!inflight.submit(metricsAddress, () -> request(socket, address, metricsAddress, replyAddress, body, deliveryOptions, replies, outbound, inflight))) {
+              sendErrFrame(codec, address, replyAddress, TOO_MANY_REQUESTS, socket);
+              return false;
+            }
+            processed(BridgeEventType.SEND, metricsAddress);
           } else {
             // no reply address it might be a response, a failure or a request that does not need a response
-            if (replies.containsKey(address)) {
+            // replies are a one time off operation
+            final Message<?> request = replies.remove(address);
+            if (request != null) {
               // address is registered, it is not a request
               Integer failureCode = msg.getInteger("failureCode");
               if ( failureCode == null ) {
                 //No failure code, it is a response
-                replies.get(address).reply(body, deliveryOptions);
+                request.reply(body, deliveryOptions);
               } else {
                 //Failure code, fail the original response
-                replies.get(address).fail(msg.getInteger("failureCode"), msg.getString("message"));
+                request.fail(msg.getInteger("failureCode"), msg.getString("message"));
               }
             } else {
               // it is a request that does not expect a response
               eb.send(address, body, deliveryOptions);
             }
+            processed(BridgeEventType.SEND, metricsAddress(address, request));
           }
-          // replies are a one time off operation
-          replies.remove(address);
         } else {
-          sendErrFrame("access_denied", socket);
+          sendErrFrame(codec, "access_denied", socket);
+          return false;
         }
         break;
       case "publish":
         if (checkMatches(true, address)) {
+          if (!acceptAddress(socket, address, limiter)) {
+            return false;
+          }
           eb.publish(address, body, deliveryOptions);
+          processed(BridgeEventType.PUBLISH, address);
         } else {
-          sendErrFrame("access_denied", socket);
+          sendErrFrame(codec, "access_denied", socket);
+          return false;
         }
         break;
       case "register":
         if (checkMatches(false, address)) {
-          registry.put(address, eb.consumer(address, (Message<Object> res1) -> {
-            // save a reference to the message so tcp bridged messages can be replied properly
-            if (res1.replyAddress() != null) {
-              replies.put(res1.replyAddress(), res1);
-            }
-
-            final JsonObject responseHeaders = new JsonObject();
-
-            // clone the headers from / to
-            for (Map.Entry<String, String> entry : res1.headers()) {
-              responseHeaders.put(entry.getKey(), entry.getValue());
-            }
-
-            sendFrame("message", res1.address(), res1.replyAddress(), responseHeaders, res1.isSend(), res1.body(), socket);
-          }));
-          checkCallHook(() -> new BridgeEventImpl(BridgeEventType.REGISTERED, msg, socket), null, null);
+          final int maxHandlers = options.getMaxHandlersPerSocket();
+          if (maxHandlers > 0 && outbound.size() >= maxHandlers && !outbound.registered(address)) {
+            sendErrFrame(codec, "too_many_handlers", socket);
+            return false;
+          }
+          // a single event bus consumer per address is shared by all the sockets
+          outbound.register(address);
+          processed(BridgeEventType.REGISTER, address);
+          checkCallHook(BridgeEventType.REGISTERED, address,
+            () -> new BridgeEventImpl(BridgeEventType.REGISTERED, msg, socket), null, null);
         } else {
-          sendErrFrame("access_denied", socket);
+          sendErrFrame(codec, "access_denied", socket);
+          return false;
         }
         break;
       case "unregister":
         if (checkMatches(false, address)) {
-          MessageConsumer<?> consumer = registry.remove(address);
-          if (consumer != null) {
-            consumer.unregister();
-          } else {
-            sendErrFrame("unknown_address", socket);
+          if (!outbound.unregister(address)) {
+            sendErrFrame(codec, "unknown_address", socket);
+            return false;
           }
+          processed(BridgeEventType.UNREGISTER, address);
         } else {
-          sendErrFrame("access_denied", socket);
+          sendErrFrame(codec, "access_denied", socket);
+          return false;
         }
         break;
       case "ping":
-        sendFrame("pong", socket);
+        sendFrame(codec, "pong", null, null, null, null, null, socket);
         break;
       default:
-        sendErrFrame("unknown_type", socket);
-        break;
+        sendErrFrame(codec, "unknown_type", socket);
+        return false;
     }
+    return true;
+  }
+
+  /**
+   * Check the rate limits of a permitted address, no token is taken for a denied frame.
+   *
+   * @return {@code false} when the frame has been rejected and an error frame has been sent
+   */
+  private boolean acceptAddress(NetSocket socket, String address, RateLimiter limiter) {
+    if (limiter != null && !limiter.acceptAddress(address)) {
+      sendErrFrame(codec, "rate_limit_exceeded", socket);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * @param request the message a frame replies to, or {@code null}
+   * @return the address to measure the frame under, replies are measured under the address of the message they
+   * reply to, the one-off reply addresses would use up the address tags
+   */
+  private static String metricsAddress(String address, Message<?> request) {
+    return request != null ? request.address() : address;
+  }
+
+  private void processed(BridgeEventType type, String address) {
+    if (metrics != null) {
+      metrics.frameProcessed(type, address);
+    }
+  }
+
+  /**
+   * Forward a request of the client to the event bus, the response is sent to the reply address of the client.
+   */
+  private void request(NetSocket socket, String address, String metricsAddress, String replyAddress, Object body,
+                       DeliveryOptions deliveryOptions, ReplyRegistry replies, OutboundQueue outbound,
+                       InflightRequests inflight) {
+    // the response is ignored once the socket is closed
+    eb.request(address, body, deliveryOptions).onComplete(inflight.track(metricsAddress, (AsyncResult<Message<Object>> res1) -> {
+      if (res1.failed()) {
+        sendErrFrame(codec, address, replyAddress, (ReplyException) res1.cause(), socket);
+      } else {
+        final Message<?> response = res1.result();
+        final JsonObject responseHeaders = new JsonObject();
+
+        // clone the headers from / to
+        for (Map.Entry<String, String> entry : response.headers()) {
+          responseHeaders.put(entry.getKey(), entry.getValue());
+        }
+
+        if (response.replyAddress() != null) {
+          replies.put(response.replyAddress(), response);
+        }
+
+        final Buffer frame = encodeMessageFrame(replyAddress, response.replyAddress(), responseHeaders, true, response.body());
+        if (options.isPrioritizeReplies()) {
+          // ahead of the queued messages
+          socket.write(frame);
+        } else {
+          outbound.reply(frame);
+        }
+      }
+    }));
+  }
+
+  /**
+   * @return {@code false} when the connection has been rejected and is being closed
+   */
+  private boolean admit(NetSocket socket) {
+    final String rejection;
+    if (acceptRate != null && !acceptRate.tryAcquire(1)) {
+      rejection = "connection_rate_exceeded";
+    } else if (options.getMaxConnections() > 0 && connections.incrementAndGet() > options.getMaxConnections()) {
+      connections.decrementAndGet();
+      rejection = "too_many_connections";
+    } else {
+      return true;
+    }
+    log.debug("Rejecting connection from " + socket.remoteAddress() + ": " + rejection);
+    if (metrics != null) {
+      metrics.connectionRejected(rejection);
+    }
+    sendErrFrame(codec, rejection, socket);
+    socket.close();
+    return false;
   }
 
   private void handler(NetSocket socket) {
 
-    final Map<String, MessageConsumer<?>> registry = new ConcurrentHashMap<>();
-    final Map<String, Message<?>> replies = new ConcurrentHashMap<>();
+    if (!admit(socket)) {
+      return;
+    }
+
+    if (metrics != null) {
+      metrics.connectionOpened();
+      if (socket instanceof NetSocketInternal) {
+        // below the compression, added before it
+        ((NetSocketInternal) socket).channelHandlerContext().pipeline().addBefore("handler", "trafficMetrics", trafficMetrics);
+      }
+    }
+
+    final ReplyRegistry replies = new ReplyRegistry(timeouts, options.getReplyTimeout(), metrics);
+    final InflightRequests inflight = new InflightRequests(options.getMaxInflightRequests(), options.getMaxQueuedRequests(), metrics);
+    final PingTimeouts.Idle idle = pingTimeouts == null ? null : pingTimeouts.register(socket);
+    final RateLimiter limiter = RateLimiter.enabled(options, rateLimitRules) ? new RateLimiter(vertx, socket, options, rateLimitRules) : null;
+
+    final OutboundQueue outbound = new OutboundQueue(socket, consumers, delivery -> {
+      final Message<?> res1 = delivery.message();
+      // save a reference to the message so tcp bridged messages can be replied properly
+      if (res1 != null && res1.replyAddress() != null) {
+        replies.put(res1.replyAddress(), res1);
+      }
+
+      socket.write(delivery.frame(this::encodeMessageFrame));
+    }, options).revokedHandler(address ->
+      sendErrFrame(codec, address, address, new ReplyException(ReplyFailure.ERROR, -1, "access_denied"), socket));
 
     // create a protocol parser
-    final FrameParser parser = new FrameParser(res -> {
+    final FrameParser parser = new FrameParser(codec, options.getMaxFrameSize(), res -> {
+      if (idle != null) {
+        // any frame shows the client is alive
+        idle.touch();
+      }
+
       if (res.failed()) {
+        if (res.cause() instanceof FrameTooLargeException) {
+          // the frame has been skipped, the connection can still be used
+          if (metrics != null) {
+            metrics.frameTooLarge(((FrameTooLargeException) res.cause()).length());
+          }
+          sendErrFrame(codec, "frame_too_large", socket);
+          return;
+        }
         // could not parse the message properly
         log.error(res.cause());
+        if (metrics != null) {
+          metrics.frameInvalid();
+        }
         return;
       }
 
+      if (metrics != null) {
+        metrics.frameReceived();
+      }
+
       final JsonObject msg = res.result();
+      final boolean batch = "batch".equals(msg.getString("type"));
 
-      // short reference
+      // the frames of a batch count against the frame rate
+      if (limiter != null && !limiter.acceptFrames(batch ? batchSize(msg) : 1)) {
+        sendErrFrame(codec, "rate_limit_exceeded", socket);
+        return;
+      }
 
-      // default to message
-      final String type = msg.getString("type", "message");
-      final String address = msg.getString("address");
-      BridgeEventType eventType = parseType(type);
-      checkCallHook(() -> new BridgeEventImpl(eventType, msg, socket),
-        () -> {
-          if (eventType != BridgeEventType.SOCKET_PING && address == null) {
-            sendErrFrame("missing_address", socket);
-            log.error("msg does not have address: " + msg);
-            return;
-          }
-          doSendOrPub(socket, address, msg, registry, replies);
-        },
-        () -> sendErrFrame("blocked by bridgeEvent handler", socket));
+      if (batch) {
+        handleBatch(socket, msg, replies, outbound, inflight, limiter);
+      } else {
+        handleFrame(socket, msg, replies, outbound, inflight, limiter, null);
+      }
     });
 
-    socket.handler(parser);
+    if (options.getCompressionThreshold() >= 0 && socket instanceof NetSocketInternal) {
+      // compress the frames once the client has shown it can read them
+      final FrameDeflater deflater = new FrameDeflater(options.getCompressionThreshold(), options.getCompressionLevel(), metrics);
+      ((NetSocketInternal) socket).channelHandlerContext().pipeline().addBefore("handler", "frameDeflater", deflater);
+      parser
+        .compressionHandler(v -> deflater.enable())
+        .metrics(metrics);
+    }
+
+    socket.closeHandler(v -> {
+      // the inflater holds native memory
+      parser.close();
+      if (options.getMaxConnections() > 0) {
+        connections.decrementAndGet();
+      }
+      if (metrics != null) {
+        metrics.connectionClosed();
+      }
+    });
+
+    if (limiter != null) {
+      socket.handler(buffer -> {
+        limiter.received(buffer.length());
+        parser.handle(buffer);
+      });
+    } else {
+      socket.handler(parser);
+    }
+
+    socket.shutdownHandler(v -> drain(socket, outbound, inflight));
 
     socket.exceptionHandler(t -> {
       log.error(t.getMessage(), t);
-      registry.values().forEach(MessageConsumer::unregister);
-      registry.clear();
+      outbound.close();
+      inflight.cancelAll();
+      replies.clear();
+      if (idle != null) {
+        idle.unregister();
+      }
+      if (limiter != null) {
+        limiter.close();
+      }
       socket.close();
     });
 
     socket.endHandler(v -> {
-      registry.values().forEach(MessageConsumer::unregister);
-      registry.clear();
+      outbound.close();
+      inflight.cancelAll();
+      replies.clear();
+      if (idle != null) {
+        idle.unregister();
+      }
+      if (limiter != null) {
+        limiter.close();
+      }
     });
   }
 
-  @Override
-  public Future<Void> close() {
-    return server.close();
+  /**
+   * Run the bridge event hook for a frame, then process it.
+   *
+   * @param done notified with whether the frame has been accepted, can be {@code null}
+   */
+  private void handleFrame(NetSocket socket, JsonObject msg, ReplyRegistry replies, OutboundQueue outbound,
+                           InflightRequests inflight, RateLimiter limiter, Handler<Boolean> done) {
+    // default to message
+    final String type = msg.getString("type", "message");
+    final String address = msg.getString("address");
+    BridgeEventType eventType = parseType(type);
+    if (!hooked(eventType, address)) {
+      // not hooked, no event to create
+      processFrame(socket, eventType, address, msg, replies, outbound, inflight, limiter, done);
+      return;
+    }
+    checkCallHook(eventType, address, () -> new BridgeEventImpl(eventType, msg, socket),
+      () -> processFrame(socket, eventType, address, msg, replies, outbound, inflight, limiter, done),
+      () -> {
+        sendErrFrame(codec, "blocked by bridgeEvent handler", socket);
+        complete(done, false);
+      },
+      () -> complete(done, false));
   }
 
-  private void checkCallHook(Supplier<BridgeEventImpl> eventSupplier, Runnable okAction, Runnable rejectAction) {
-    if (bridgeEventHandler == null) {
-      if (okAction != null) {
-        okAction.run();
-      }
-    } else {
-      BridgeEventImpl event = eventSupplier.get();
-      bridgeEventHandler.handle(event);
-      event.future().onComplete(res -> {
-        if (res.succeeded()) {
-          if (res.result()) {
-            if (okAction != null) {
-              okAction.run();
-            }
-          } else {
-            if (rejectAction != null) {
-              rejectAction.run();
-            } else {
-              log.debug("Bridge handler prevented send or pub");
-            }
-          }
-        } else {
-          log.error("Failure in bridge event handler", res.cause());
-        }
-      });
+  private void processFrame(NetSocket socket, BridgeEventType eventType, String address, JsonObject msg,
+                            ReplyRegistry replies, OutboundQueue outbound, InflightRequests inflight,
+                            RateLimiter limiter, Handler<Boolean> done) {
+    if (eventType != BridgeEventType.SOCKET_PING && address == null) {
+      sendErrFrame(codec, "missing_address", socket);
+      log.error("msg does not have address: " + msg);
+      complete(done, false);
+      return;
     }
+    complete(done, doSendOrPub(socket, address, msg, replies, outbound, inflight, limiter));
   }
 
-  private boolean checkMatches(boolean inbound, String address) {
-    return checkMatches(inbound, address, null);
-  }
+  /**
+   * A batch frame carries an array of send and publish frames in its body. They are processed in order, the bridge
+   * event hook is called for each of them, or once for the whole batch with the {@code bridgeEventPerBatch} option. When
+   * the batch has a reply address, a single message with the number of accepted and rejected frames is sent to it.
+   */
+  private void handleBatch(NetSocket socket, JsonObject batch, ReplyRegistry replies, OutboundQueue outbound,
+                           InflightRequests inflight, RateLimiter limiter) {
+    if (!(batch.getValue("body") instanceof JsonArray)) {
+      sendErrFrame(codec, "invalid_batch", socket);
+      return;
+    }
 
-  private boolean checkMatches(boolean inbound, String address, Map<String, Message<?>> replies) {
-    // special case, when dealing with replies the addresses are not in the inbound/outbound list but on
-    // the replies registry
-    if (replies != null && inbound && replies.containsKey(address)) {
-      return true;
+    if (options.isBridgeEventPerBatch()) {
+      final JsonArray frames = batch.getJsonArray("body");
+      final int size = frames.size();
+      final BridgeEventType eventType = batchType(frames);
+      checkCallHook(eventType, null, () -> new BridgeEventImpl(eventType, batch, socket),
+        // the hook may have modified the batch
+        () -> processBatch(socket, batch, replies, outbound, inflight, limiter, false),
+        () -> {
+          sendErrFrame(codec, "blocked by bridgeEvent handler", socket);
+          batchAck(socket, batch, 0, size);
+        },
+        null);
+    } else {
+      processBatch(socket, batch, replies, outbound, inflight, limiter, true);
     }
+  }
 
-    List<PermittedOptions> matches = inbound ? options.getInboundPermitteds() : options.getOutboundPermitteds();
+  private void processBatch(NetSocket socket, JsonObject batch, ReplyRegistry replies, OutboundQueue outbound,
+                            InflightRequests inflight, RateLimiter limiter, boolean callHook) {
+    final JsonArray frames = batch.getJsonArray("body");
+    final AtomicInteger pending = new AtomicInteger(frames.size());
+    final AtomicInteger rejected = new AtomicInteger();
+    final boolean ack = batch.getString("replyAddress") != null;
 
-    for (PermittedOptions matchHolder : matches) {
-      String matchAddress = matchHolder.getAddress();
-      String matchRegex;
-      if (matchAddress == null) {
-        matchRegex = matchHolder.getAddressRegex();
-      } else {
-        matchRegex = null;
+    final Handler<Boolean> done = accepted -> {
+      if (!accepted) {
+        rejected.incrementAndGet();
       }
+      if (pending.decrementAndGet() == 0 && ack) {
+        batchAck(socket, batch, frames.size() - rejected.get(), rejected.get());
+      }
+    };
+
+    if (frames.isEmpty() && ack) {
+      batchAck(socket, batch, 0, 0);
+      return;
+    }
 
-      boolean addressOK;
-      if (matchAddress == null) {
-        addressOK = matchRegex == null || regexMatches(matchRegex, address);
+    for (Object frame : frames) {
+      final JsonObject msg = frame instanceof JsonObject ? (JsonObject) frame : null;
+      final String type = msg == null ? null : msg.getString("type");
+      if (!"send".equals(type) && !"publish".equals(type)) {
+        sendErrFrame(codec, "unknown_type", socket);
+        done.handle(false);
+      } else if (callHook) {
+        handleFrame(socket, msg, replies, outbound, inflight, limiter, done);
+      } else if (msg.getString("address") == null) {
+        sendErrFrame(codec, "missing_address", socket);
+        done.handle(false);
       } else {
-        addressOK = matchAddress.equals(address);
+        done.handle(doSendOrPub(socket, msg.getString("address"), msg, replies, outbound, inflight, limiter));
       }
+    }
+  }
+
+  /**
+   * @return the number of frames of a batch, at least one
+   */
+  private static int batchSize(JsonObject batch) {
+    final Object frames = batch.getValue("body");
+    return frames instanceof JsonArray ? Math.max(1, ((JsonArray) frames).size()) : 1;
+  }
 
-      if (addressOK) {
-        return true;
+  /**
+   * @return {@code PUBLISH} for a batch of publish frames only, {@code SEND} otherwise
+   */
+  private static BridgeEventType batchType(JsonArray frames) {
+    if (frames.isEmpty()) {
+      return BridgeEventType.SEND;
+    }
+    for (Object frame : frames) {
+      if (!(frame instanceof JsonObject) || !"publish".equals(((JsonObject) frame).getString("type"))) {
+        return BridgeEventType.SEND;
       }
     }
+    return BridgeEventType.PUBLISH;
+  }
 
-    return false;
+  private void batchAck(NetSocket socket, JsonObject batch, int accepted, int rejected) {
+    final String replyAddress = batch.getString("replyAddress");
+    if (replyAddress != null) {
+      sendFrame(codec, "message", replyAddress, null, null, true, new JsonObject()
+        .put("accepted", accepted)
+        .put("rejected", rejected), socket);
+    }
+  }
+
+  private static void complete(Handler<Boolean> done, boolean accepted) {
+    if (done != null) {
+      done.handle(accepted);
+    }
+  }
+
+  private Buffer encodeMessageFrame(Message<?> msg) {
+    final JsonObject headers = new JsonObject();
+
+    // clone the headers from / to
+    for (Map.Entry<String, String> entry : msg.headers()) {
+      headers.put(entry.getKey(), entry.getValue());
+    }
+
+    return encodeMessageFrame(msg.address(), msg.replyAddress(), headers, msg.isSend(), msg.body());
+  }
+
+  private Buffer encodeMessageFrame(String address, String replyAddress, JsonObject headers, boolean send, Object body) {
+    if (body instanceof Buffer && options.isUseBinaryFrames()) {
+      return encodeBinaryFrame(codec, "message", address, replyAddress, headers, send, (Buffer) body);
+    }
+    return encodeFrame(codec, "message", address, replyAddress, headers, send, body);
+  }
+
+  @Override
+  public Future<Void> close() {
+    return close(0);
+  }
+
+  @Override
+  public Future<Void> close(long drainTimeout) {
+    // stops accepting, then the sockets drain until they close or the timeout closes them
+    return server.shutdown(drainTimeout, TimeUnit.MILLISECONDS)
+      .andThen(ar -> {
+        timeouts.close();
+        consumers.unregisterAll();
+      });
+  }
+
+  @Override
+  public Future<Void> updateOptions(BridgeOptions options) {
+    return updateOptions(options, false);
+  }
+
+  @Override
+  public Future<Void> updateOptions(BridgeOptions options, boolean revoke) {
+    // compiling many rules takes time, not on the event loop
+    return vertx.executeBlocking(() -> new Permissions(options))
+      .map(permissions -> {
+        this.permissions = permissions;
+        if (revoke) {
+          consumers.revoke(permissions.outbound::matches);
+        }
+        return null;
+      });
+  }
+
+  /**
+   * The bridge is closing: stop delivering messages to the socket and close it once the messages already queued are
+   * written and the in-flight requests have their response.
+   */
+  private void drain(NetSocket socket, OutboundQueue outbound, InflightRequests inflight) {
+    // clients can reconnect to another bridge
+    sendFrame(codec, "closing", null, null, null, null, null, socket);
+    outbound.unregisterAll();
+    inflight.whenEmpty(() -> outbound.whenDrained(() -> {
+      // closing right away could lose the last frames, close once they are flushed
+      socket.write(Buffer.buffer()).onComplete(v -> socket.close());
+    }));
   }
 
-  private boolean regexMatches(String matchRegex, String address) {
-    Pattern pattern = compiledREs.get(matchRegex);
-    if (pattern == null) {
-      pattern = Pattern.compile(matchRegex);
-      compiledREs.put(matchRegex, pattern);
+  /**
+   * Whether an event is given to the hook, by its type and address. Events without an address are only selected by
+   * their type.
+   */
+  private boolean hooked(BridgeEventType type, String address) {
+    if (bridgeEventHandler == null && bridgeEventFilter == null) {
+      return false;
     }
-    Matcher m = pattern.matcher(address);
-    return m.matches();
+    if (hookedTypes != null && !hookedTypes.contains(type)) {
+      return false;
+    }
+    return address == null || hookedAddresses == null || hookedAddresses.matches(address);
+  }
+
+  private void checkCallHook(BridgeEventType type, String address, Supplier<BridgeEventImpl> eventSupplier,
+                             Runnable okAction, Runnable rejectAction) {
+    checkCallHook(type, address, eventSupplier, okAction, rejectAction, null);
   }
 
-  private DeliveryOptions parseMsgHeaders(DeliveryOptions options, JsonObject headers) {
-    if (headers == null)
-      return options;
+  /**
+   * Give an event to the synchronous filter then to the handler. The event is only created when it is hooked, the
+   * filter decides without a promise, the handler completes the promise of the event.
+   */
+  private void checkCallHook(BridgeEventType type, String address, Supplier<BridgeEventImpl> eventSupplier,
+                             Runnable okAction, Runnable rejectAction, Runnable failureAction) {
+    if (!hooked(type, address)) {
+      if (okAction != null) {
+        okAction.run();
+      }
+      return;
+    }
+
+    BridgeEventImpl event = eventSupplier.get();
+    final long start = metrics != null ? System.nanoTime() : 0L;
+    if (bridgeEventFilter != null) {
+      final boolean accepted;
+      try {
+        accepted = bridgeEventFilter.test(event);
+      } catch (Exception e) {
+        if (metrics != null) {
+          metrics.bridgeEventFailed(type, System.nanoTime() - start);
+        }
+        log.error("Failure in bridge event filter", e);
+        if (failureAction != null) {
+          failureAction.run();
+        }
+        return;
+      }
+      if (!accepted || bridgeEventHandler == null) {
+        if (metrics != null) {
+          metrics.bridgeEventCompleted(type, accepted, System.nanoTime() - start);
+        }
+        decided(accepted, okAction, rejectAction);
+        return;
+      }
+    }
 
-    Iterator<String> fnameIter = headers.fieldNames().iterator();
-    String fname;
-    while (fnameIter.hasNext()) {
-      fname = fnameIter.next();
-      if ("timeout".equals(fname)) {
-          options.setSendTimeout(headers.getLong(fname));
-      } else if ("localOnly".equals(fname)) {
-          options.setLocalOnly(headers.getBoolean(fname));
-      } else if ("codecName".equals(fname)) {
-          options.setCodecName(headers.getString(fname));
+    // the promise is created before the handler may complete it from another thread
+    final Future<Boolean> future = event.future();
+    bridgeEventHandler.handle(event);
+    future.onComplete(res -> {
+      if (metrics != null) {
+        if (res.succeeded()) {
+          metrics.bridgeEventCompleted(type, res.result(), System.nanoTime() - start);
+        } else {
+          metrics.bridgeEventFailed(type, System.nanoTime() - start);
+        }
+      }
+      if (res.succeeded()) {
+        decided(res.result(), okAction, rejectAction);
       } else {
-        options.addHeader(fname, headers.getString(fname));
+        log.error("Failure in bridge event handler", res.cause());
+        if (failureAction != null) {
+          failureAction.run();
+        }
+      }
+    });
+  }
+
+  private static void decided(boolean accepted, Runnable okAction, Runnable rejectAction) {
+    if (accepted) {
+      if (okAction != null) {
+        okAction.run();
+      }
+    } else {
+      if (rejectAction != null) {
+        rejectAction.run();
+      } else {
+        log.debug("Bridge handler prevented send or pub");
       }
     }
+  }
 
-    return options;
+  private boolean checkMatches(boolean inbound, String address) {
+    return checkMatches(inbound, address, null);
+  }
+
+  private boolean checkMatches(boolean inbound, String address, ReplyRegistry replies) {
+    // special case, when dealing with replies the addresses are not in the inbound/outbound list but on
+    // the replies registry
+    if (replies != null && inbound && replies.contains(address)) {
+      return true;
+    }
+
+    final Permissions permissions = this.permissions;
+    if ((inbound ? permissions.inbound : permissions.outbound).matches(address)) {
+      return true;
+    }
+    if (metrics != null) {
+      metrics.accessDenied(address, inbound);
+    }
+    return false;
+  }
+
+  private static Object body(JsonObject msg) {
+    // binary frames carry a Buffer body, getValue would turn it into a base64 string
+    final Object body = msg.getMap().get("body");
+    return body instanceof Buffer ? body : msg.getValue("body");
   }
 
   private static BridgeEventType parseType(String typeStr) {
@@ -367,4 +820,18 @@ public class TcpEventBusBridgeImpl implements TcpEventBusBridge {
         throw new IllegalArgumentException("Invalid frame type " + typeStr);
     }
   }
+
+  /**
+   * The compiled inbound and outbound permissions, immutable.
+   */
+  private static final class Permissions {
+
+    private final AddressMatcher inbound;
+    private final AddressMatcher outbound;
+
+    Permissions(BridgeOptions options) {
+      this.inbound = AddressMatcher.compile(options.getInboundPermitteds());
+      this.outbound = AddressMatcher.compile(options.getOutboundPermitteds());
+    }
+  }
 }
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.eventbus.bridge.tcp.impl;
+
+import io.vertx.core.Vertx;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Hashed timer wheel driven by a single Vert.x periodic timer, so scheduling a timeout costs a queue insertion instead
+ * of a timer. Timeouts fire within a tick after their deadline, a timeout that is no longer needed should be cancelled
+ * so it does not hold its state until then.
+ * <p>
+ * Timeouts can be scheduled and cancelled from any thread, the requests are queued and applied by the timer on its
+ * own context, which is the only one touching the slots. Slots are intrusive doubly linked lists, so placing and
+ * unlinking a timeout is constant time.
+ */
+class TimerWheel {
+
+  abstract static class Timeout {
+
+    // the slot the timeout is linked in, only accessed from the timer context
+    private Slot slot;
+    private Timeout prev;
+    private Timeout next;
+
+    private volatile boolean cancelled;
+
+    /**
+     * @return the deadline, in milliseconds of {@link TimerWheel#now()}
+     */
+    abstract long deadline();
+
+    abstract void expire();
+  }
+
+  private static final class Slot {
+
+    Timeout head;
+
+    void add(Timeout timeout) {
+      timeout.slot = this;
+      timeout.next = head;
+      if (head != null) {
+        head.prev = timeout;
+      }
+      head = timeout;
+    }
+
+    void remove(Timeout timeout) {
+      if (timeout.prev != null) {
+        timeout.prev.next = timeout.next;
+      } else {
+        head = timeout.next;
+      }
+      if (timeout.next != null) {
+        timeout.next.prev = timeout.prev;
+      }
+      timeout.slot = null;
+      timeout.prev = null;
+      timeout.next = null;
+    }
+  }
+
+  private static final int SLOTS = 512;
+
+  private final Vertx vertx;
+  private final long tick;
+  private final Slot[] slots;
+  private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+  private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean started = new AtomicBoolean();
+
+  // the last processed tick, only accessed from the timer context
+  private long lastTick = Long.MIN_VALUE;
+  private volatile long timerId = -1;
+
+  TimerWheel(Vertx vertx, long tick) {
+    this.vertx = vertx;
+    this.tick = tick;
+    this.slots = new Slot[SLOTS];
+    for (int i = 0; i < SLOTS; i++) {
+      slots[i] = new Slot();
+    }
+  }
+
+  static long now() {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+  }
+
+  void schedule(Timeout timeout) {
+    scheduled.add(timeout);
+    if (started.compareAndSet(false, true)) {
+      timerId = vertx.setPeriodic(tick, id -> advance());
+    }
+  }
+
+  /**
+   * Remove a timeout that is no longer needed, it will not fire and is unlinked at the next tick.
+   */
+  void cancel(Timeout timeout) {
+    if (!timeout.cancelled) {
+      timeout.cancelled = true;
+      cancelled.add(timeout);
+    }
+  }
+
+  void close() {
+    final long id = timerId;
+    if (id != -1) {
+      vertx.cancelTimer(id);
+    }
+  }
+
+  private void advance() {
+    final long current = now() / tick;
+    // timers can be late, process the skipped slots too, at most one round
+    final long first = lastTick == Long.MIN_VALUE ? current : Math.max(lastTick + 1, current - SLOTS + 1);
+    lastTick = current;
+
+    Timeout timeout;
+    while ((timeout = cancelled.poll()) != null) {
+      if (timeout.slot != null) {
+        timeout.slot.remove(timeout);
+      }
+    }
+    // placed before the slots are processed, never behind them, so a new timeout never waits for a whole round
+    while ((timeout = scheduled.poll()) != null) {
+      if (!timeout.cancelled) {
+        final long t = Math.max(tickOf(timeout), first);
+        slots[(int) (t & (SLOTS - 1))].add(timeout);
+      }
+    }
+
+    for (long t = first; t <= current; t++) {
+      final Slot slot = slots[(int) (t & (SLOTS - 1))];
+      timeout = slot.head;
+      while (timeout != null) {
+        final Timeout next = timeout.next;
+        // later rounds stay in the slot, the deadline of the others is within the tick
+        if (tickOf(timeout) <= t) {
+          slot.remove(timeout);
+          if (!timeout.cancelled) {
+            timeout.expire();
+          }
+        }
+        timeout = next;
+      }
+    }
+  }
+
+  /**
+   * @return the first tick at or after the deadline, a timeout never fires early
+   */
+  private long tickOf(Timeout timeout) {
+    return (timeout.deadline() + tick - 1) / tick;
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.eventbus.bridge.tcp.impl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A token bucket refilled at a constant rate up to its capacity. The bucket is a single atomic timestamp: the time at
+ * which it will be full again, so taking tokens neither locks nor allocates.
+ */
+final class TokenBucket {
+
+  private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  // time to refill a token
+  private final double nanosPerToken;
+  // time to refill the whole bucket
+  private final long capacityNanos;
+  private final AtomicLong full;
+
+  /**
+   * @param rate the tokens refilled per second
+   * @param capacity the max number of tokens, the allowed burst
+   */
+  TokenBucket(long rate, long capacity) {
+    this.nanosPerToken = (double) SECOND / rate;
+    this.capacityNanos = (long) (nanosPerToken * Math.max(capacity, 1));
+    this.full = new AtomicLong(System.nanoTime());
+  }
+
+  /**
+   * @return {@code false} when the bucket does not hold enough tokens, none are taken then
+   */
+  boolean tryAcquire(long tokens) {
+    final long cost = (long) (nanosPerToken * tokens);
+    while (true) {
+      final long now = System.nanoTime();
+      final long current = full.get();
+      // an idle bucket does not hold more than its capacity
+      final long next = Math.max(current, now) + cost;
+      if (next - now > capacityNanos) {
+        return false;
+      }
+      if (full.compareAndSet(current, next)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Give back tokens taken by {@link #tryAcquire(long)} and not used.
+   */
+  void release(long tokens) {
+    full.addAndGet(-(long) (nanosPerToken * tokens));
+  }
+
+  /**
+   * Take tokens even when the bucket does not hold enough of them.
+   *
+   * @return the time in nanoseconds before the bucket holds tokens again, {@code 0} when it still does
+   */
+  long acquire(long tokens) {
+    final long cost = (long) (nanosPerToken * tokens);
+    while (true) {
+      final long now = System.nanoTime();
+      final long current = full.get();
+      final long next = Math.max(current, now) + cost;
+      if (full.compareAndSet(current, next)) {
+        return Math.max(0, next - now - capacityNanos);
+      }
+    }
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.eventbus.bridge.tcp.impl;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.vertx.ext.eventbus.bridge.tcp.spi.metrics.TcpEventBusBridgeMetrics;
+
+/**
+ * Reports the bytes read from and written to the connections, and the frames written. It sits next to the socket in
+ * the channel pipeline, below the frame compression, so it sees the bytes of the wire. Every write of the bridge is a
+ * whole frame, so a write is a frame.
+ * <p>
+ * The handler holds no state, a single instance is shared by all the connections of a bridge.
+ */
+@ChannelHandler.Sharable
+class TrafficMetrics extends ChannelDuplexHandler {
+
+  private final TcpEventBusBridgeMetrics metrics;
+
+  TrafficMetrics(TcpEventBusBridgeMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  @Override
+  public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+    if (msg instanceof ByteBuf) {
+      metrics.bytesRead(((ByteBuf) msg).readableBytes());
+    }
+    super.channelRead(ctx, msg);
+  }
+
+  @Override
+  public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+    if (msg instanceof ByteBuf) {
+      final int length = ((ByteBuf) msg).readableBytes();
+      // empty writes only flush the socket
+      if (length > 0) {
+        metrics.bytesWritten(length);
+        metrics.frameSent();
+      }
+    }
+    super.write(ctx, msg, promise);
+  }
+}
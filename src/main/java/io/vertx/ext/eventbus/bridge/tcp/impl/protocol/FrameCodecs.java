@@ -0,0 +1,103 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.eventbus.bridge.tcp.impl.protocol;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonFactoryBuilder;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.StreamReadConstraints;
+import com.fasterxml.jackson.core.TSFBuilder;
+import io.vertx.core.json.jackson.HybridJacksonPool;
+import io.vertx.core.json.jackson.JacksonCodec;
+import io.vertx.ext.eventbus.bridge.tcp.spi.FrameCodec;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ServiceLoader;
+
+/**
+ * The built-in frame codecs and the lookup of codecs by name.
+ */
+public final class FrameCodecs {
+
+  public static final FrameCodec JSON = new Simple("json", configure(new JsonFactoryBuilder()));
+
+  private FrameCodecs() {}
+
+  /**
+   * Find a codec by name.
+   *
+   * @throws IllegalArgumentException when there is no such codec
+   */
+  public static FrameCodec lookup(String name) {
+    if (name == null || JSON.name().equals(name)) {
+      return JSON;
+    }
+    if ("cbor".equals(name)) {
+      // loaded lazily, the CBOR format is an optional dependency
+      return Cbor.CODEC;
+    }
+    for (FrameCodec codec : ServiceLoader.load(FrameCodec.class)) {
+      if (name.equals(codec.name())) {
+        return codec;
+      }
+    }
+    throw new IllegalArgumentException("Unknown frame codec: " + name);
+  }
+
+  /**
+   * Build a factory configured like the one of Vert.x {@link JacksonCodec}: the read constraints set with the Vert.x
+   * system properties and its buffer recycler pool.
+   */
+  private static <F extends JsonFactory, B extends TSFBuilder<F, B>> F configure(B builder) {
+    final StreamReadConstraints constraints;
+    try (JsonParser parser = JacksonCodec.createParser("")) {
+      constraints = parser.streamReadConstraints();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return builder
+      .streamReadConstraints(constraints)
+      .recyclerPool(HybridJacksonPool.getInstance())
+      .build();
+  }
+
+  private static final class Cbor {
+    static final FrameCodec CODEC = new Simple("cbor",
+      configure(com.fasterxml.jackson.dataformat.cbor.CBORFactory.builder()));
+  }
+
+  private static final class Simple implements FrameCodec {
+
+    private final String name;
+    private final JsonFactory factory;
+
+    Simple(String name, JsonFactory factory) {
+      this.name = name;
+      this.factory = factory;
+    }
+
+    @Override
+    public String name() {
+      return name;
+    }
+
+    @Override
+    public JsonFactory factory() {
+      return factory;
+    }
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.eventbus.bridge.tcp.impl.protocol;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToMessageEncoder;
+import io.vertx.ext.eventbus.bridge.tcp.spi.metrics.TcpEventBusBridgeMetrics;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses the outbound frames of a connection. Every write of the bridge is a whole frame, frames whose payload is
+ * at least {@code threshold} bytes are replaced by a compressed frame: the {@link FrameHelper#COMPRESSED_FRAME} marker
+ * followed by the raw deflate of the original payload.
+ * <p>
+ * Nothing is compressed until {@link #enable()} is called, i.e. until the client has shown it understands compressed
+ * frames. The native state of the deflater is only allocated then.
+ */
+public class FrameDeflater extends MessageToMessageEncoder<ByteBuf> {
+
+  private final int threshold;
+  private final int level;
+  private final TcpEventBusBridgeMetrics metrics;
+
+  // created once enabled
+  private Deflater deflater;
+  private boolean removed;
+
+  public FrameDeflater(int threshold, int level, TcpEventBusBridgeMetrics metrics) {
+    this.threshold = threshold;
+    this.level = level;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Start compressing frames, must be called from the connection event loop.
+   */
+  public void enable() {
+    if (deflater == null && !removed) {
+      deflater = new Deflater(level, true);
+    }
+  }
+
+  @Override
+  protected void encode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) {
+    final int start = msg.readerIndex();
+    final int length = msg.readableBytes() - 4;
+
+    // only whole frames are compressed, anything else is passed as is
+    if (deflater == null || length < threshold || length <= 0 || msg.getInt(start) != length) {
+      out.add(msg.retain());
+      return;
+    }
+
+    final long begin = metrics != null ? System.nanoTime() : 0L;
+
+    deflater.reset();
+    deflater.setInput(msg.nioBuffer(start + 4, length));
+    deflater.finish();
+
+    // a compressed payload is only worth sending when it is smaller than the original one
+    final ByteBuf frame = ctx.alloc().buffer(4 + length);
+    final ByteBuffer compressed = frame.nioBuffer(5, length - 1);
+    while (!deflater.finished() && compressed.hasRemaining()) {
+      deflater.deflate(compressed);
+    }
+
+    if (!deflater.finished()) {
+      frame.release();
+      out.add(msg.retain());
+      return;
+    }
+
+    final int compressedLength = 1 + compressed.position();
+    frame
+      .setInt(0, compressedLength)
+      .setByte(4, FrameHelper.COMPRESSED_FRAME)
+      .writerIndex(4 + compressedLength);
+
+    if (metrics != null) {
+      metrics.frameCompressed(length, compressedLength, System.nanoTime() - begin);
+    }
+    out.add(frame);
+  }
+
+  @Override
+  public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+    removed = true;
+    if (deflater != null) {
+      deflater.end();
+      deflater = null;
+    }
+    super.handlerRemoved(ctx);
+  }
+}
@@ -15,48 +15,74 @@
  */
 package io.vertx.ext.eventbus.bridge.tcp.impl.protocol;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.DeliveryOptions;
 import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.json.EncodeException;
 import io.vertx.core.json.JsonObject;
+import io.vertx.core.json.jackson.JacksonCodec;
 import io.vertx.core.streams.WriteStream;
+import io.vertx.ext.eventbus.bridge.tcp.spi.FrameCodec;
 
-import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
 
 /**
- * Helper class to format and send frames over a socket
+ * Helper class to format and send frames over a socket.
+ * <p>
+ * Frames are streamed by a generator of the {@link FrameCodec} straight into the buffer that is written to the socket,
+ * the length prefix is back-patched once the payload is complete. No intermediate envelope, {@code String} or
+ * {@code byte[]} is created. The methods without a codec use JSON.
+ *
  * @author Paulo Lopes
  */
 public class FrameHelper {
 
-  private static final Charset UTF8 = StandardCharsets.UTF_8;
+  /**
+   * First byte of a binary frame payload, it can never start a JSON document.
+   */
+  public static final byte BINARY_FRAME = 0x00;
+
+  /**
+   * First byte of a compressed frame payload, the rest is the raw deflate of a JSON or binary frame payload.
+   */
+  public static final byte COMPRESSED_FRAME = 0x01;
+
+  private static final int INITIAL_FRAME_SIZE = 256;
 
   private FrameHelper() {}
 
-  public static void sendFrame(String type, String address, String replyAddress, JsonObject headers, Boolean send, Object body, WriteStream<Buffer> handler) {
-    final JsonObject payload = new JsonObject().put("type", type);
+  public static void sendFrame(FrameCodec codec, String type, String address, String replyAddress, JsonObject headers, Boolean send, Object body, WriteStream<Buffer> handler) {
+    handler.write(encodeFrame(codec, type, address, replyAddress, headers, send, body));
+  }
 
-    if (address != null) {
-      payload.put("address", address);
-    }
+  /**
+   * Encode a frame without writing it, so the same frame can be written to many sockets.
+   */
+  public static Buffer encodeFrame(FrameCodec codec, String type, String address, String replyAddress, JsonObject headers, Boolean send, Object body) {
+    final Buffer buffer = startFrame();
 
-    if (replyAddress != null) {
-      payload.put("replyAddress", replyAddress);
-    }
+    try (JsonGenerator generator = generator(codec, buffer)) {
+      generator.writeStartObject();
+      writeEnvelope(generator, type, address, replyAddress, headers, send);
 
-    if (headers != null) {
-      payload.put("headers", headers);
-    }
+      if (body != null) {
+        generator.writeFieldName("body");
+        JacksonCodec.encodeJson(body, generator);
+      }
 
-    if (body != null) {
-      payload.put("body", body);
+      generator.writeEndObject();
+    } catch (IOException e) {
+      throw new EncodeException(e.getMessage(), e);
     }
 
-    if (send != null) {
-      payload.put("send", send);
-    }
+    return endFrame(buffer);
+  }
 
-    writeFrame(payload, handler);
+  public static void sendFrame(String type, String address, String replyAddress, JsonObject headers, Boolean send, Object body, WriteStream<Buffer> handler) {
+    sendFrame(FrameCodecs.JSON, type, address, replyAddress, headers, send, body, handler);
   }
 
   public static void sendFrame(String type, String address, String replyAddress, Object body, WriteStream<Buffer> handler) {
@@ -71,30 +97,186 @@ public class FrameHelper {
     sendFrame(type, null, null, null, null, null, handler);
   }
 
+  /**
+   * Send a frame with a raw body: a marker byte, a length prefixed header and the body bytes.
+   */
+  public static void sendBinaryFrame(FrameCodec codec, String type, String address, String replyAddress, JsonObject headers, Boolean send, Buffer body, WriteStream<Buffer> handler) {
+    handler.write(encodeBinaryFrame(codec, type, address, replyAddress, headers, send, body));
+  }
+
+  /**
+   * Encode a binary frame without writing it, so the same frame can be written to many sockets.
+   */
+  public static Buffer encodeBinaryFrame(FrameCodec codec, String type, String address, String replyAddress, JsonObject headers, Boolean send, Buffer body) {
+    final Buffer buffer = startFrame()
+      .appendByte(BINARY_FRAME)
+      // reserve room for the header length
+      .appendInt(0);
+
+    try (JsonGenerator generator = generator(codec, buffer)) {
+      generator.writeStartObject();
+      writeEnvelope(generator, type, address, replyAddress, headers, send);
+      generator.writeEndObject();
+    } catch (IOException e) {
+      throw new EncodeException(e.getMessage(), e);
+    }
+
+    buffer.setInt(5, buffer.length() - 9);
+
+    if (body != null) {
+      buffer.appendBuffer(body);
+    }
+
+    return endFrame(buffer);
+  }
+
+  public static void sendBinaryFrame(String type, String address, String replyAddress, JsonObject headers, Boolean send, Buffer body, WriteStream<Buffer> handler) {
+    sendBinaryFrame(FrameCodecs.JSON, type, address, replyAddress, headers, send, body, handler);
+  }
+
+  public static void sendErrFrame(FrameCodec codec, String address, String replyAddress, ReplyException failure, WriteStream<Buffer> handler) {
+    final Buffer buffer = startFrame();
+
+    try (JsonGenerator generator = generator(codec, buffer)) {
+      generator.writeStartObject();
+      generator.writeStringField("type", "err");
+      generator.writeStringField("address", replyAddress);
+      generator.writeStringField("sourceAddress", address);
+      generator.writeNumberField("failureCode", failure.failureCode());
+      generator.writeStringField("failureType", failure.failureType().name());
+      generator.writeStringField("message", failure.getMessage());
+      generator.writeEndObject();
+    } catch (IOException e) {
+      throw new EncodeException(e.getMessage(), e);
+    }
+
+    endFrame(buffer, handler);
+  }
+
   public static void sendErrFrame(String address, String replyAddress, ReplyException failure, WriteStream<Buffer> handler) {
-    final JsonObject payload = new JsonObject()
-        .put("type", "err")
-        .put("address", replyAddress)
-        .put("sourceAddress", address)
-        .put("failureCode", failure.failureCode())
-        .put("failureType", failure.failureType().name())
-        .put("message", failure.getMessage());
+    sendErrFrame(FrameCodecs.JSON, address, replyAddress, failure, handler);
+  }
 
-    writeFrame(payload, handler);
+  public static void sendErrFrame(FrameCodec codec, String message, WriteStream<Buffer> handler) {
+    final Buffer buffer = startFrame();
+
+    try (JsonGenerator generator = generator(codec, buffer)) {
+      generator.writeStartObject();
+      generator.writeStringField("type", "err");
+      generator.writeStringField("message", message);
+      generator.writeEndObject();
+    } catch (IOException e) {
+      throw new EncodeException(e.getMessage(), e);
+    }
+
+    endFrame(buffer, handler);
   }
 
   public static void sendErrFrame(String message, WriteStream<Buffer> handler) {
-    final JsonObject payload = new JsonObject()
-        .put("type", "err")
-        .put("message", message);
+    sendErrFrame(FrameCodecs.JSON, message, handler);
+  }
 
-    writeFrame(payload, handler);
+  public static void writeFrame(FrameCodec codec, JsonObject payload, WriteStream<Buffer> handler) {
+    final Buffer buffer = startFrame();
+
+    try (JsonGenerator generator = generator(codec, buffer)) {
+      JacksonCodec.encodeJson(payload, generator);
+    } catch (IOException e) {
+      throw new EncodeException(e.getMessage(), e);
+    }
+
+    endFrame(buffer, handler);
   }
 
   public static void writeFrame(JsonObject payload, WriteStream<Buffer> handler) {
-    // encode
-    byte[] data = payload.encode().getBytes(UTF8);
+    writeFrame(FrameCodecs.JSON, payload, handler);
+  }
+
+  /**
+   * Apply the headers of a frame to the delivery options: {@code timeout}, {@code localOnly} and {@code codecName} are
+   * options, the other headers are message headers.
+   */
+  public static DeliveryOptions parseMsgHeaders(DeliveryOptions options, JsonObject headers) {
+    if (headers == null)
+      return options;
+
+    Iterator<String> fnameIter = headers.fieldNames().iterator();
+    String fname;
+    while (fnameIter.hasNext()) {
+      fname = fnameIter.next();
+      if ("timeout".equals(fname)) {
+        options.setSendTimeout(headers.getLong(fname));
+      } else if ("localOnly".equals(fname)) {
+        options.setLocalOnly(headers.getBoolean(fname));
+      } else if ("codecName".equals(fname)) {
+        options.setCodecName(headers.getString(fname));
+      } else {
+        options.addHeader(fname, headers.getString(fname));
+      }
+    }
+
+    return options;
+  }
+
+  private static void writeEnvelope(JsonGenerator generator, String type, String address, String replyAddress, JsonObject headers, Boolean send) throws IOException {
+    generator.writeStringField("type", type);
 
-    handler.write(Buffer.buffer().appendInt(data.length).appendBytes(data));
+    if (address != null) {
+      generator.writeStringField("address", address);
+    }
+
+    if (replyAddress != null) {
+      generator.writeStringField("replyAddress", replyAddress);
+    }
+
+    if (headers != null && !headers.isEmpty()) {
+      generator.writeFieldName("headers");
+      JacksonCodec.encodeJson(headers, generator);
+    }
+
+    if (send != null) {
+      generator.writeBooleanField("send", send);
+    }
+  }
+
+  private static JsonGenerator generator(FrameCodec codec, Buffer buffer) throws IOException {
+    return codec.factory().createGenerator(new BufferOutputStream(buffer));
+  }
+
+  private static Buffer startFrame() {
+    // reserve room for the length prefix
+    return Buffer.buffer(INITIAL_FRAME_SIZE).appendInt(0);
+  }
+
+  private static void endFrame(Buffer buffer, WriteStream<Buffer> handler) {
+    handler.write(endFrame(buffer));
+  }
+
+  private static Buffer endFrame(Buffer buffer) {
+    // back-patch the length prefix
+    return buffer.setInt(0, buffer.length() - 4);
+  }
+
+  /**
+   * Appends the generator output to a buffer. The generator already buffers its output in recycled chunks, so
+   * this is the only copy of the encoded bytes.
+   */
+  private static final class BufferOutputStream extends OutputStream {
+
+    private final Buffer buffer;
+
+    BufferOutputStream(Buffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public void write(int b) {
+      buffer.appendByte((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      buffer.appendBytes(b, off, len);
+    }
   }
 }
@@ -15,12 +15,24 @@
  */
 package io.vertx.ext.eventbus.bridge.tcp.impl.protocol;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.DecodeException;
+import io.vertx.core.internal.buffer.BufferInternal;
 import io.vertx.core.json.JsonObject;
+import io.vertx.core.json.jackson.JacksonCodec;
+import io.vertx.ext.eventbus.bridge.tcp.spi.FrameCodec;
+import io.vertx.ext.eventbus.bridge.tcp.spi.metrics.TcpEventBusBridgeMetrics;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
 
 /**
  * Simple LV parser
@@ -29,86 +41,281 @@ import io.vertx.core.json.JsonObject;
  */
 public class FrameParser implements Handler<Buffer> {
 
-  private Buffer _buffer;
-  private int _offset;
+  // never trust the length prefix for more than this when pre-allocating room for a partial frame, an idle client
+  // announcing a large frame must not pin memory, larger frames still work, the buffer grows as data arrives
+  private static final int MAX_PREALLOCATION = 64 * 1024;
+
+  // partial length prefix (a prefix can also straddle reads)
+  private int _header;
+  private int _headerBytes;
+
+  // partial frame body, grown up to the announced length as data arrives
+  private Buffer _frame;
+  private int _length;
+
+  // bytes left to discard from a frame that is too large
+  private long _skip;
 
+  private final FrameCodec codec;
+  private final int maxFrameSize;
   private final Handler<AsyncResult<JsonObject>> client;
 
+  // compressed frames, only accepted once a compression handler is set
+  private Handler<Void> compressionHandler;
+  private TcpEventBusBridgeMetrics metrics;
+  private Inflater inflater;
+  private byte[] inflated;
+
   public FrameParser(Handler<AsyncResult<JsonObject>> client) {
+    this(FrameCodecs.JSON, Integer.MAX_VALUE, client);
+  }
+
+  public FrameParser(int maxFrameSize, Handler<AsyncResult<JsonObject>> client) {
+    this(FrameCodecs.JSON, maxFrameSize, client);
+  }
+
+  public FrameParser(FrameCodec codec, int maxFrameSize, Handler<AsyncResult<JsonObject>> client) {
+    this.codec = codec;
+    this.maxFrameSize = maxFrameSize;
     this.client = client;
   }
 
+  /**
+   * Accept compressed frames, the handler is called when the first one is received.
+   *
+   * @param handler the handler
+   * @return a reference to this, so the API can be used fluently
+   */
+  public FrameParser compressionHandler(Handler<Void> handler) {
+    this.compressionHandler = handler;
+    return this;
+  }
+
+  /**
+   * Set the metrics notified when a compressed frame is decoded.
+   *
+   * @param metrics the metrics, can be {@code null}
+   * @return a reference to this, so the API can be used fluently
+   */
+  public FrameParser metrics(TcpEventBusBridgeMetrics metrics) {
+    this.metrics = metrics;
+    return this;
+  }
+
+  /**
+   * Release the inflater of the compressed frames, the connection is closed.
+   */
+  public void close() {
+    if (inflater != null) {
+      inflater.end();
+      inflater = null;
+      // no compressed frame can be decoded anymore
+      compressionHandler = null;
+    }
+  }
+
   @Override
   public void handle(Buffer buffer) {
-    append(buffer);
+    if (buffer == null) {
+      return;
+    }
 
-    int offset;
+    final int end = buffer.length();
+    int offset = 0;
+
+    // complete the frame left over from previous reads
+    while (offset < end && pending()) {
+      offset = resume(buffer, offset, end);
+    }
 
-    while (true) {
-      // set a rewind point. if a failure occurs,
-      // wait for the next handle()/append() and try again
-      offset = _offset;
+    if (pending()) {
+      // not enough data, wait for the next packet to appear
+      return;
+    }
 
-      // how many bytes are in the buffer
-      int remainingBytes = bytesRemaining();
+    // fast path: decode all whole frames in place
+    while (end - offset >= 4) {
+      // what is the length of the message
+      int length = buffer.getInt(offset);
 
-      // at least 4 bytes
-      if (remainingBytes < 4) {
-        break;
+      if (length < 0 || length > maxFrameSize) {
+        offset = reject(length, buffer, offset + 4, end);
+        continue;
       }
 
-      // what is the length of the message
-      int length = _buffer.getInt(_offset);
-      _offset += 4;
-
-      if (remainingBytes - 4 >= length) {
-        // we have a complete message
-        try {
-          client.handle(Future.succeededFuture(new JsonObject(_buffer.getString(_offset, _offset + length))));
-        } catch (DecodeException e) {
-          // bad json
-          client.handle(Future.failedFuture(e));
-        }
-        _offset += length;
-      } else {
-        // not enough data: rewind, and wait
-        // for the next packet to appear
-        _offset = offset;
+      if (end - offset - 4 < length) {
         break;
       }
+
+      // we have a complete message
+      decode(buffer, offset + 4, length);
+      offset += 4 + length;
+    }
+
+    // keep the unconsumed tail
+    while (offset < end) {
+      offset = resume(buffer, offset, end);
     }
   }
 
-  private void append(Buffer newBuffer) {
-    if (newBuffer == null) {
-      return;
+  private boolean pending() {
+    return _skip > 0 || _headerBytes > 0 || _frame != null;
+  }
+
+  /**
+   * Feed bytes to the frame left over from previous reads, never past the end of that frame.
+   *
+   * @return the offset of the first byte that has not been consumed
+   */
+  private int resume(Buffer buffer, int offset, int end) {
+    if (_skip > 0) {
+      final int count = (int) Math.min(_skip, end - offset);
+      _skip -= count;
+      return offset + count;
     }
 
-    // first run
-    if (_buffer == null) {
-      _buffer = newBuffer;
+    if (_frame == null) {
+      _header = (_header << 8) | (buffer.getByte(offset++) & 0xff);
+      if (++_headerBytes < 4) {
+        return offset;
+      }
+
+      final int length = _header;
+      _header = 0;
+      _headerBytes = 0;
 
-      return;
+      if (length < 0 || length > maxFrameSize) {
+        return reject(length, buffer, offset, end);
+      }
+
+      _length = length;
+      // room for the bytes already read, not for the announced length
+      _frame = Buffer.buffer(Math.min(length, Math.min(end - offset, MAX_PREALLOCATION)));
+    }
+
+    final int count = Math.min(_length - _frame.length(), end - offset);
+    _frame.appendBuffer(buffer, offset, count);
+    offset += count;
+
+    if (_frame.length() == _length) {
+      final Buffer frame = _frame;
+      _frame = null;
+      decode(frame, 0, _length);
     }
 
-    // out of data
-    if (_offset >= _buffer.length()) {
-      _buffer = newBuffer;
-      _offset = 0;
+    return offset;
+  }
+
+  /**
+   * Report a frame that is too large and stream past its body without buffering it.
+   *
+   * @return the offset of the first byte that has not been consumed
+   */
+  private int reject(int length, Buffer buffer, int offset, int end) {
+    // the prefix is an unsigned 32 bit integer
+    final long unsignedLength = Integer.toUnsignedLong(length);
+    client.handle(Future.failedFuture(new FrameTooLargeException(unsignedLength, maxFrameSize)));
+    _skip = unsignedLength;
+    return offset < end ? resume(buffer, offset, end) : offset;
+  }
 
+  private void decode(Buffer buffer, int offset, int length) {
+    final JsonObject json;
+    try {
+      if (length > 0 && buffer.getByte(offset) == FrameHelper.COMPRESSED_FRAME && compressionHandler != null) {
+        final Buffer payload = inflate(buffer, offset, length);
+        json = decodePayload(payload, 0, payload.length());
+      } else {
+        json = decodePayload(buffer, offset, length);
+      }
+    } catch (DecodeException | FrameTooLargeException e) {
+      // bad json or compressed payload
+      client.handle(Future.failedFuture(e));
       return;
     }
+    client.handle(Future.succeededFuture(json));
+  }
+
+  private JsonObject decodePayload(Buffer buffer, int offset, int length) {
+    if (length > 0 && buffer.getByte(offset) == FrameHelper.BINARY_FRAME) {
+      return decodeBinary(buffer, offset, length);
+    }
+    return decodeObject(buffer, offset, offset + length);
+  }
+
+  /**
+   * A compressed frame is a marker byte and the raw deflate of a payload, the inflated payload is subject to the max
+   * frame size too.
+   */
+  private Buffer inflate(Buffer buffer, int offset, int length) {
+    if (inflater == null) {
+      inflater = new Inflater(true);
+      inflated = new byte[8192];
+      compressionHandler.handle(null);
+    } else {
+      inflater.reset();
+    }
+
+    final long begin = metrics != null ? System.nanoTime() : 0L;
+    final Buffer payload = Buffer.buffer((int) Math.min(Math.min(maxFrameSize, MAX_PREALLOCATION), length * 4L));
+
+    inflater.setInput(((BufferInternal) buffer).getByteBuf().nioBuffer(offset + 1, length - 1));
+    try {
+      while (!inflater.finished()) {
+        final int count = inflater.inflate(inflated);
+        if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          throw new DecodeException("Invalid compressed frame: truncated");
+        }
+        if (payload.length() + count > maxFrameSize) {
+          throw new FrameTooLargeException(payload.length() + count, maxFrameSize);
+        }
+        payload.appendBytes(inflated, 0, count);
+      }
+    } catch (DataFormatException e) {
+      throw new DecodeException("Invalid compressed frame: " + e.getMessage(), e);
+    }
+
+    if (metrics != null) {
+      metrics.frameDecompressed(length, payload.length(), System.nanoTime() - begin);
+    }
+    return payload;
+  }
 
-    // very large packet
-    if (_offset > 0) {
-      _buffer = _buffer.getBuffer(_offset, _buffer.length());
+  /**
+   * A binary frame is a marker byte, a length prefixed JSON header and the raw body, the body is added to the header
+   * as a {@link Buffer}.
+   */
+  private JsonObject decodeBinary(Buffer buffer, int offset, int length) {
+    if (length < 5) {
+      throw new DecodeException("Invalid binary frame: missing header");
+    }
+    final int headerLength = buffer.getInt(offset + 1);
+    if (headerLength < 0 || headerLength > length - 5) {
+      throw new DecodeException("Invalid binary frame: header length " + headerLength);
     }
-    _buffer.appendBuffer(newBuffer);
 
-    _offset = 0;
+    final int bodyStart = offset + 5 + headerLength;
+    final JsonObject json = decodeObject(buffer, offset + 5, bodyStart);
+    // the body outlives the frame, copy it
+    json.put("body", buffer.getBuffer(bodyStart, offset + length));
+    return json;
   }
 
-  private int bytesRemaining() {
-    return (_buffer.length() - _offset) < 0 ? 0 : (_buffer.length() - _offset);
+  /**
+   * Decode straight from the bytes: a slice shares the underlying memory, so no copy nor String is created.
+   */
+  @SuppressWarnings("unchecked")
+  private JsonObject decodeObject(Buffer buffer, int start, int end) {
+    final ByteBuf bytes = ((BufferInternal) buffer.slice(start, end)).getByteBuf();
+    final Map<String, Object> map;
+    try {
+      map = JacksonCodec.fromParser(codec.factory().createParser((InputStream) new ByteBufInputStream(bytes)), Map.class);
+    } catch (IOException e) {
+      throw new DecodeException(e.getMessage(), e);
+    }
+    if (map == null) {
+      throw new DecodeException("Invalid frame: not an object");
+    }
+    return new JsonObject(map);
   }
 }
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.eventbus.bridge.tcp.impl.protocol;
+
+import io.vertx.core.VertxException;
+
+/**
+ * Reported by the {@link FrameParser} when a length prefix exceeds the max frame size. The frame itself is skipped.
+ */
+public class FrameTooLargeException extends VertxException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final long length;
+
+  public FrameTooLargeException(long length, int maxFrameSize) {
+    super("Frame length " + length + " exceeds the max frame size " + maxFrameSize, true);
+    this.length = length;
+  }
+
+  /**
+   * @return the announced frame length
+   */
+  public long length() {
+    return length;
+  }
+}
@@ -0,0 +1,334 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.eventbus.bridge.tcp.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.vertx.ext.bridge.BridgeEventType;
+import io.vertx.ext.eventbus.bridge.tcp.spi.metrics.TcpEventBusBridgeMetrics;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bridge metrics recorded in a Micrometer {@link MeterRegistry}, under the {@code vertx.tcp.bridge} prefix.
+ * <p>
+ * The meters tagged with an address are bounded: the first {@code maxAddresses} permitted addresses get their own tag,
+ * the following ones are recorded with the {@code other} address tag. The addresses of denied frames and of the replies
+ * never get a tag of their own, they are recorded with the tag of a permitted address or with {@code other}. Meters are
+ * registered the first time they are used and then looked up without allocating.
+ */
+public class MicrometerTcpEventBusBridgeMetrics implements TcpEventBusBridgeMetrics {
+
+  /**
+   * The default max number of address tags = 100
+   */
+  public static final int DEFAULT_MAX_ADDRESSES = 100;
+
+  /**
+   * The address tag of the addresses over the limit
+   */
+  public static final String OTHER_ADDRESS = "other";
+
+  private static final String PREFIX = "vertx.tcp.bridge.";
+
+  private final int maxAddresses;
+  private final Set<String> addresses = ConcurrentHashMap.newKeySet();
+
+  // gauges only hold a weak reference to their value
+  private final AtomicLong connections = new AtomicLong();
+  private final AtomicLong inflightRequests = new AtomicLong();
+  private final AtomicLong queuedMessages = new AtomicLong();
+
+  private final Counter bytesRead;
+  private final Counter bytesWritten;
+  private final Counter framesReceived;
+  private final Counter framesSent;
+  private final Counter framesInvalid;
+  private final Counter framesTooLarge;
+  private final Counter repliesOrphaned;
+  private final Timer compression;
+  private final Timer decompression;
+  private final Counter compressionInput;
+  private final Counter compressionOutput;
+  private final Counter decompressionInput;
+  private final Counter decompressionOutput;
+
+  private final Meters<Counter> connectionsRejected;
+  private final Map<BridgeEventType, Meters<Counter>> framesProcessed = new EnumMap<>(BridgeEventType.class);
+  private final Meters<Counter> inboundDenied;
+  private final Meters<Counter> outboundDenied;
+  private final Map<BridgeEventType, Meters<Timer>> bridgeEvents = new EnumMap<>(BridgeEventType.class);
+  private final Meters<Timer> requests;
+  private final Meters<Counter> requestsCancelled;
+  private final Meters<Counter> requestsRejected;
+  private final Meters<Counter> messagesDropped;
+  private final Meters<Counter> repliesExpired;
+
+  public MicrometerTcpEventBusBridgeMetrics(MeterRegistry registry) {
+    this(registry, DEFAULT_MAX_ADDRESSES);
+  }
+
+  /**
+   * @param registry the registry of the meters
+   * @param maxAddresses the max number of address tags
+   */
+  public MicrometerTcpEventBusBridgeMetrics(MeterRegistry registry, int maxAddresses) {
+    if (maxAddresses < 0) {
+      throw new IllegalArgumentException("maxAddresses must be >= 0");
+    }
+    this.maxAddresses = maxAddresses;
+
+    Gauge.builder(PREFIX + "connections", connections, AtomicLong::get)
+      .description("Number of open connections")
+      .register(registry);
+    Gauge.builder(PREFIX + "requests.inflight", inflightRequests, AtomicLong::get)
+      .description("Number of requests of the clients waiting for their response")
+      .register(registry);
+    Gauge.builder(PREFIX + "queue.size", queuedMessages, AtomicLong::get)
+      .description("Number of messages queued by congested sockets")
+      .register(registry);
+
+    bytesRead = Counter.builder(PREFIX + "bytes.read").baseUnit("bytes").register(registry);
+    bytesWritten = Counter.builder(PREFIX + "bytes.written").baseUnit("bytes").register(registry);
+    framesReceived = Counter.builder(PREFIX + "frames.received").register(registry);
+    framesSent = Counter.builder(PREFIX + "frames.sent").register(registry);
+    framesInvalid = Counter.builder(PREFIX + "frames.errors").tag("error", "invalid").register(registry);
+    framesTooLarge = Counter.builder(PREFIX + "frames.errors").tag("error", "too_large").register(registry);
+    repliesOrphaned = Counter.builder(PREFIX + "replies.orphaned").register(registry);
+    compression = Timer.builder(PREFIX + "compression").tag("direction", "deflate").register(registry);
+    decompression = Timer.builder(PREFIX + "compression").tag("direction", "inflate").register(registry);
+    compressionInput = bytes(registry, "compression.input", "deflate");
+    compressionOutput = bytes(registry, "compression.output", "deflate");
+    decompressionInput = bytes(registry, "compression.input", "inflate");
+    decompressionOutput = bytes(registry, "compression.output", "inflate");
+
+    connectionsRejected = new Meters<>(reason -> Counter.builder(PREFIX + "connections.rejected")
+      .tag("reason", reason)
+      .register(registry));
+    for (BridgeEventType type : BridgeEventType.values()) {
+      final String name = type.name().toLowerCase(Locale.ROOT);
+      framesProcessed.put(type, new Meters<>(address -> Counter.builder(PREFIX + "frames.processed")
+        .tag("type", name)
+        .tag("address", address)
+        .register(registry)));
+      bridgeEvents.put(type, new Meters<>(outcome -> Timer.builder(PREFIX + "events")
+        .description("Time spent by the bridge event handler")
+        .tag("type", name)
+        .tag("outcome", outcome)
+        .register(registry)));
+    }
+    inboundDenied = new Meters<>(address -> Counter.builder(PREFIX + "access.denied")
+      .tag("direction", "inbound")
+      .tag("address", address)
+      .register(registry));
+    outboundDenied = new Meters<>(address -> Counter.builder(PREFIX + "access.denied")
+      .tag("direction", "outbound")
+      .tag("address", address)
+      .register(registry));
+    requests = new Meters<>(address -> Timer.builder(PREFIX + "requests")
+      .description("Round trip time of the requests of the clients")
+      .tag("address", address)
+      .register(registry));
+    requestsCancelled = new Meters<>(address -> Counter.builder(PREFIX + "requests.cancelled")
+      .description("Requests of the clients whose socket closed before the response")
+      .tag("address", address)
+      .register(registry));
+    requestsRejected = new Meters<>(address -> Counter.builder(PREFIX + "requests.rejected")
+      .tag("address", address)
+      .register(registry));
+    messagesDropped = new Meters<>(address -> Counter.builder(PREFIX + "messages.dropped")
+      .tag("address", address)
+      .register(registry));
+    repliesExpired = new Meters<>(address -> Counter.builder(PREFIX + "replies.expired")
+      .tag("address", address)
+      .register(registry));
+  }
+
+  private static Counter bytes(MeterRegistry registry, String name, String direction) {
+    return Counter.builder(PREFIX + name).baseUnit("bytes").tag("direction", direction).register(registry);
+  }
+
+  @Override
+  public void connectionOpened() {
+    connections.incrementAndGet();
+  }
+
+  @Override
+  public void connectionClosed() {
+    connections.decrementAndGet();
+  }
+
+  @Override
+  public void connectionRejected(String reason) {
+    connectionsRejected.get(reason).increment();
+  }
+
+  @Override
+  public void bytesRead(int length) {
+    bytesRead.increment(length);
+  }
+
+  @Override
+  public void bytesWritten(int length) {
+    bytesWritten.increment(length);
+  }
+
+  @Override
+  public void frameReceived() {
+    framesReceived.increment();
+  }
+
+  @Override
+  public void frameSent() {
+    framesSent.increment();
+  }
+
+  @Override
+  public void frameInvalid() {
+    framesInvalid.increment();
+  }
+
+  @Override
+  public void frameTooLarge(long length) {
+    framesTooLarge.increment();
+  }
+
+  @Override
+  public void frameProcessed(BridgeEventType type, String address) {
+    framesProcessed.get(type).get(address(address)).increment();
+  }
+
+  @Override
+  public void accessDenied(String address, boolean inbound) {
+    (inbound ? inboundDenied : outboundDenied).get(knownAddress(address)).increment();
+  }
+
+  @Override
+  public void bridgeEventCompleted(BridgeEventType type, boolean accepted, long nanos) {
+    bridgeEvents.get(type).get(accepted ? "accepted" : "rejected").record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public void bridgeEventFailed(BridgeEventType type, long nanos) {
+    bridgeEvents.get(type).get("failed").record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public void writeQueueChanged(int delta) {
+    queuedMessages.addAndGet(delta);
+  }
+
+  @Override
+  public void messageDropped(String address) {
+    messagesDropped.get(address(address)).increment();
+  }
+
+  @Override
+  public void frameCompressed(int length, int compressedLength, long nanos) {
+    compression.record(nanos, TimeUnit.NANOSECONDS);
+    compressionInput.increment(length);
+    compressionOutput.increment(compressedLength);
+  }
+
+  @Override
+  public void frameDecompressed(int compressedLength, int length, long nanos) {
+    decompression.record(nanos, TimeUnit.NANOSECONDS);
+    decompressionInput.increment(compressedLength);
+    decompressionOutput.increment(length);
+  }
+
+  @Override
+  public void replyExpired(String address) {
+    repliesExpired.get(knownAddress(address)).increment();
+  }
+
+  @Override
+  public void repliesOrphaned(int count) {
+    repliesOrphaned.increment(count);
+  }
+
+  @Override
+  public void requestStarted(String address) {
+    inflightRequests.incrementAndGet();
+  }
+
+  @Override
+  public void requestEnded(String address, long nanos) {
+    inflightRequests.decrementAndGet();
+    requests.get(address(address)).record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public void requestCancelled(String address) {
+    inflightRequests.decrementAndGet();
+    requestsCancelled.get(address(address)).increment();
+  }
+
+  @Override
+  public void requestRejected(String address) {
+    requestsRejected.get(address(address)).increment();
+  }
+
+  /**
+   * @return the tag of a permitted address, {@link #OTHER_ADDRESS} once the limit is reached
+   */
+  private String address(String address) {
+    if (addresses.contains(address)) {
+      return address;
+    }
+    // concurrent callers may go slightly over the limit, the number of tags remains bounded
+    if (addresses.size() < maxAddresses) {
+      addresses.add(address);
+      return address;
+    }
+    return OTHER_ADDRESS;
+  }
+
+  /**
+   * @return the tag of an address that may not be permitted, {@link #OTHER_ADDRESS} when it has no tag yet
+   */
+  private String knownAddress(String address) {
+    return addresses.contains(address) ? address : OTHER_ADDRESS;
+  }
+
+  /**
+   * The meters of a metric by tag value, registered on first use.
+   */
+  private static final class Meters<M> {
+
+    private final ConcurrentMap<String, M> meters = new ConcurrentHashMap<>();
+    private final Function<String, M> factory;
+
+    Meters(Function<String, M> factory) {
+      this.factory = factory;
+    }
+
+    M get(String tag) {
+      final M meter = meters.get(tag);
+      return meter != null ? meter : meters.computeIfAbsent(tag, factory);
+    }
+  }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.eventbus.bridge.tcp.spi;
+
+import com.fasterxml.jackson.core.JsonFactory;
+
+/**
+ * The wire format of the frame payloads.
+ * <p>
+ * Frames are read and written with the Jackson streaming API, so any format with a Jackson {@link JsonFactory}
+ * (JSON, CBOR, MessagePack, Smile...) can be used. The bridge provides the {@code json} and {@code cbor} codecs,
+ * other codecs are discovered with the {@link java.util.ServiceLoader} and selected by name with
+ * {@link io.vertx.ext.eventbus.bridge.tcp.TcpEventBusBridgeOptions#setCodec(String)}.
+ * <p>
+ * The first byte of an encoded object must never be {@code 0x00} nor {@code 0x01}, these values mark binary and
+ * compressed frames.
+ */
+public interface FrameCodec {
+
+  /**
+   * @return the codec name
+   */
+  String name();
+
+  /**
+   * @return the factory creating the parsers and generators of the format, it must be thread safe
+   */
+  JsonFactory factory();
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.eventbus.bridge.tcp.spi.metrics;
+
+import io.vertx.ext.bridge.BridgeEventType;
+
+/**
+ * The metrics interface notified by the TCP EventBus bridge.
+ * <p>
+ * All methods have an empty default implementation, so an implementation only needs to override the events it cares
+ * about. Methods are called on the event loop of the connection and must not block.
+ */
+public interface TcpEventBusBridgeMetrics {
+
+  /**
+   * Called when a connection has been accepted.
+   */
+  default void connectionOpened() {
+  }
+
+  /**
+   * Called when an accepted connection has been closed.
+   */
+  default void connectionClosed() {
+  }
+
+  /**
+   * Called when a connection is rejected by the admission control and closed.
+   *
+   * @param reason the error sent to the client, {@code too_many_connections} or {@code connection_rate_exceeded}
+   */
+  default void connectionRejected(String reason) {
+  }
+
+  /**
+   * Called when bytes have been read from a connection.
+   *
+   * @param length the number of bytes, compressed frames count their compressed length
+   */
+  default void bytesRead(int length) {
+  }
+
+  /**
+   * Called when bytes have been written to a connection.
+   *
+   * @param length the number of bytes, compressed frames count their compressed length
+   */
+  default void bytesWritten(int length) {
+  }
+
+  /**
+   * Called when a frame of a client has been parsed.
+   */
+  default void frameReceived() {
+  }
+
+  /**
+   * Called when a frame has been written to a connection.
+   */
+  default void frameSent() {
+  }
+
+  /**
+   * Called when a frame of a client cannot be parsed.
+   */
+  default void frameInvalid() {
+  }
+
+  /**
+   * Called when a {@code send}, {@code publish}, {@code register} or {@code unregister} frame of a client has been
+   * accepted by the bridge.
+   *
+   * @param type the frame type
+   * @param address the frame address
+   */
+  default void frameProcessed(BridgeEventType type, String address) {
+  }
+
+  /**
+   * Called when a frame of a client is rejected because its address is not permitted.
+   *
+   * @param address the frame address
+   * @param inbound {@code true} for the inbound permissions ({@code send}, {@code publish}), {@code false} for the
+   *                outbound ones ({@code register}, {@code unregister})
+   */
+  default void accessDenied(String address, boolean inbound) {
+  }
+
+  /**
+   * Called when the bridge event handler has completed the event.
+   *
+   * @param type the event type
+   * @param accepted whether the handler has accepted the event
+   * @param nanos the time between the event and its completion
+   */
+  default void bridgeEventCompleted(BridgeEventType type, boolean accepted, long nanos) {
+  }
+
+  /**
+   * Called when the bridge event handler has failed the event.
+   *
+   * @param type the event type
+   * @param nanos the time between the event and its failure
+   */
+  default void bridgeEventFailed(BridgeEventType type, long nanos) {
+  }
+
+  /**
+   * Called when messages are queued because a socket is congested, or leave the queue. The sum of the changes is the
+   * number of messages queued by all the sockets.
+   *
+   * @param delta the number of messages added to the queue, negative when they are removed
+   */
+  default void writeQueueChanged(int delta) {
+  }
+
+  /**
+   * Called when a client frame is rejected because its length prefix exceeds the configured max frame size.
+   *
+   * @param length the announced frame length (unsigned)
+   */
+  default void frameTooLarge(long length) {
+  }
+
+  /**
+   * Called when a message is dropped because the write queue of a socket is full.
+   *
+   * @param address the message address
+   */
+  default void messageDropped(String address) {
+  }
+
+  /**
+   * Called when an outbound frame has been compressed.
+   *
+   * @param length the payload length before compression
+   * @param compressedLength the payload length after compression
+   * @param nanos the time spent compressing
+   */
+  default void frameCompressed(int length, int compressedLength, long nanos) {
+  }
+
+  /**
+   * Called when a compressed client frame has been decompressed.
+   *
+   * @param compressedLength the payload length before decompression
+   * @param length the payload length after decompression
+   * @param nanos the time spent decompressing
+   */
+  default void frameDecompressed(int compressedLength, int length, long nanos) {
+  }
+
+  /**
+   * Called when a message waiting for a reply from the client is forgotten because its deadline has passed.
+   *
+   * @param address the message address
+   */
+  default void replyExpired(String address) {
+  }
+
+  /**
+   * Called when a socket is closed while messages are still waiting for a reply from its client.
+   *
+   * @param count the number of messages that will never be replied by the bridge
+   */
+  default void repliesOrphaned(int count) {
+  }
+
+  /**
+   * Called when a request of a client is sent to the event bus, the number of in-flight requests is the number of
+   * started requests that have neither ended nor been cancelled.
+   *
+   * @param address the request address
+   */
+  default void requestStarted(String address) {
+  }
+
+  /**
+   * Called when a request of a client has received its response or failure.
+   *
+   * @param address the request address
+   * @param nanos the time since the request started
+   */
+  default void requestEnded(String address, long nanos) {
+  }
+
+  /**
+   * Called when the socket of a request has been closed before its response, the response will be ignored.
+   *
+   * @param address the request address
+   */
+  default void requestCancelled(String address) {
+  }
+
+  /**
+   * Called when a request of a client is rejected because the socket has too many in-flight requests.
+   *
+   * @param address the request address
+   */
+  default void requestRejected(String address) {
+  }
+}
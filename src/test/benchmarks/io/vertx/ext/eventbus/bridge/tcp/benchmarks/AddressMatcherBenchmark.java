@@ -0,0 +1,142 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.eventbus.bridge.tcp.benchmarks;
+
+import io.vertx.ext.bridge.PermittedOptions;
+import io.vertx.ext.eventbus.bridge.tcp.impl.AddressMatcher;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Permission checks by number and kind of rules: exact addresses, prefix regexes, general regexes, or a third of each
+ * for {@code mixed}. {@code linear} is the former loop over the rules, {@code compiled} and {@code uncached} the
+ * compiled matcher with and without its decision cache. The addresses are a mix of allowed and denied ones.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AddressMatcherBenchmark {
+
+  @Param({"10", "100", "300", "1000"})
+  public int rules;
+
+  @Param({"mixed", "exact", "prefix", "regex"})
+  public String ruleSet;
+
+  private List<PermittedOptions> permitteds;
+  private final Map<String, Pattern> compiledREs = new HashMap<>();
+  private AddressMatcher compiled;
+  private AddressMatcher uncached;
+  private String[] addresses;
+  private int next;
+
+  @Setup
+  public void setup() {
+    permitteds = new ArrayList<>();
+    for (int i = 0; i < rules; i++) {
+      switch (kind(i)) {
+        case 0:
+          permitteds.add(new PermittedOptions().setAddress("service." + i));
+          break;
+        case 1:
+          permitteds.add(new PermittedOptions().setAddressRegex("feed" + i + "\\..*"));
+          break;
+        default:
+          permitteds.add(new PermittedOptions().setAddressRegex("orders" + i + "\\.[0-9]+"));
+          break;
+      }
+    }
+    compiled = AddressMatcher.compile(permitteds);
+    uncached = AddressMatcher.compile(permitteds, 0);
+
+    final Random random = new Random(42);
+    addresses = new String[1024];
+    for (int i = 0; i < addresses.length; i++) {
+      final int rule = random.nextInt(rules);
+      // a quarter of denied addresses
+      switch (random.nextInt(4) == 0 ? -1 : kind(rule)) {
+        case 0:
+          addresses[i] = "service." + rule;
+          break;
+        case 1:
+          addresses[i] = "feed" + rule + ".updates";
+          break;
+        case 2:
+          addresses[i] = "orders" + rule + "." + random.nextInt(100);
+          break;
+        default:
+          addresses[i] = "denied." + rule;
+          break;
+      }
+    }
+  }
+
+  private int kind(int rule) {
+    switch (ruleSet) {
+      case "exact":
+        return 0;
+      case "prefix":
+        return 1;
+      case "regex":
+        return 2;
+      default:
+        return rule % 3;
+    }
+  }
+
+  private String address() {
+    return addresses[next++ & (addresses.length - 1)];
+  }
+
+  @Benchmark
+  public boolean linear() {
+    final String address = address();
+    for (PermittedOptions matchHolder : permitteds) {
+      final String matchAddress = matchHolder.getAddress();
+      if (matchAddress != null) {
+        if (matchAddress.equals(address)) {
+          return true;
+        }
+      } else {
+        final Pattern pattern = compiledREs.computeIfAbsent(matchHolder.getAddressRegex(), Pattern::compile);
+        if (pattern.matcher(address).matches()) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  @Benchmark
+  public boolean compiled() {
+    return compiled.matches(address());
+  }
+
+  @Benchmark
+  public boolean uncached() {
+    return uncached.matches(address());
+  }
+}
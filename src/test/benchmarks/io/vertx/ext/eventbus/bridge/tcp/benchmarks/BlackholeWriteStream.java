@@ -0,0 +1,76 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.eventbus.bridge.tcp.benchmarks;
+
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.WriteStream;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * A write stream consuming the frames with a JMH {@link Blackhole}.
+ */
+public class BlackholeWriteStream implements WriteStream<Buffer> {
+
+  private final Blackhole blackhole;
+  private Buffer last;
+
+  public BlackholeWriteStream(Blackhole blackhole) {
+    this.blackhole = blackhole;
+  }
+
+  /**
+   * @return the last written buffer
+   */
+  public Buffer last() {
+    return last;
+  }
+
+  @Override
+  public WriteStream<Buffer> exceptionHandler(Handler<Throwable> handler) {
+    return this;
+  }
+
+  @Override
+  public Future<Void> write(Buffer data) {
+    last = data;
+    if (blackhole != null) {
+      blackhole.consume(data);
+    }
+    return null;
+  }
+
+  @Override
+  public Future<Void> end() {
+    return null;
+  }
+
+  @Override
+  public WriteStream<Buffer> setWriteQueueMaxSize(int maxSize) {
+    return this;
+  }
+
+  @Override
+  public boolean writeQueueFull() {
+    return false;
+  }
+
+  @Override
+  public WriteStream<Buffer> drainHandler(Handler<Void> handler) {
+    return this;
+  }
+}
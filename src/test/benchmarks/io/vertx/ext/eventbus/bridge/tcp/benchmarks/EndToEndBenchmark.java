@@ -0,0 +1,137 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.eventbus.bridge.tcp.benchmarks;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.internal.VertxInternal;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.net.NetClient;
+import io.vertx.core.net.NetClientOptions;
+import io.vertx.core.net.NetServerOptions;
+import io.vertx.core.net.NetSocket;
+import io.vertx.core.net.SocketAddress;
+import io.vertx.ext.bridge.PermittedOptions;
+import io.vertx.ext.eventbus.bridge.tcp.TcpEventBusBridge;
+import io.vertx.ext.eventbus.bridge.tcp.TcpEventBusBridgeOptions;
+import io.vertx.ext.eventbus.bridge.tcp.impl.protocol.FrameHelper;
+import io.vertx.ext.eventbus.bridge.tcp.impl.protocol.FrameParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A client and a bridge in the same process, over loopback TCP or a Unix domain socket. Each invocation writes a burst
+ * of frames and waits until they have all reached the event bus, or for {@code request} until all the responses are
+ * back to the client. The score is per frame.
+ * <p>
+ * Run with {@code -prof gc} to see the bytes allocated per frame, client side included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EndToEndBenchmark {
+
+  private static final int BURST = 100;
+
+  @Param({"tcp", "uds"})
+  public String transport;
+
+  @Param({"send", "publish", "request"})
+  public String op;
+
+  private Vertx vertx;
+  private File socketFile;
+  private NetSocket socket;
+  private Buffer frame;
+  private final Semaphore done = new Semaphore(0);
+
+  @Setup
+  public void setup() throws IOException {
+    vertx = Vertx.vertx();
+
+    final SocketAddress address;
+    if ("uds".equals(transport)) {
+      if (!((VertxInternal) vertx).transport().supportsDomainSockets()) {
+        throw new IllegalStateException("Domain sockets not supported on this platform");
+      }
+      socketFile = new File(Files.createTempDirectory("bridge").toFile(), "bridge.sock");
+      address = SocketAddress.domainSocketAddress(socketFile.getAbsolutePath());
+    } else {
+      address = SocketAddress.inetSocketAddress(7000, "localhost");
+    }
+
+    vertx.eventBus().consumer("bench.sink", msg -> done.release());
+    vertx.eventBus().consumer("bench.echo", msg -> msg.reply(msg.body()));
+
+    TcpEventBusBridge.create(vertx, new TcpEventBusBridgeOptions()
+        .addInboundPermitted(new PermittedOptions().setAddressRegex("bench\\..+")),
+      new NetServerOptions().setTcpNoDelay(true))
+      .listen(address)
+      .await();
+
+    final NetClient client = vertx.createNetClient(new NetClientOptions().setTcpNoDelay(true));
+    socket = client.connect(address).await();
+    socket.handler(new FrameParser(res -> {
+      // the responses of the requests
+      if ("message".equals(res.result().getString("type"))) {
+        done.release();
+      }
+    }));
+
+    final JsonObject body = new JsonObject().put("id", 42).put("symbol", "SYM42").put("price", 20.5);
+    final BlackholeWriteStream out = new BlackholeWriteStream(null);
+    switch (op) {
+      case "send":
+        FrameHelper.sendFrame("send", "bench.sink", body, out);
+        break;
+      case "publish":
+        FrameHelper.sendFrame("publish", "bench.sink", body, out);
+        break;
+      default:
+        FrameHelper.sendFrame("send", "bench.echo", "#reply", body, out);
+        break;
+    }
+    frame = out.last();
+  }
+
+  @TearDown
+  public void tearDown() {
+    vertx.close().await();
+    if (socketFile != null) {
+      socketFile.delete();
+      socketFile.getParentFile().delete();
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BURST)
+  public void burst() throws InterruptedException {
+    for (int i = 0; i < BURST; i++) {
+      socket.write(frame);
+    }
+    if (!done.tryAcquire(BURST, 10, TimeUnit.SECONDS)) {
+      throw new IllegalStateException("Frames lost");
+    }
+  }
+}
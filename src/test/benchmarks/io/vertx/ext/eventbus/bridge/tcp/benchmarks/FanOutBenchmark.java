@@ -0,0 +1,86 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.eventbus.bridge.tcp.benchmarks;
+
+import io.vertx.core.MultiMap;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.eventbus.bridge.tcp.impl.protocol.FrameCodecs;
+import io.vertx.ext.eventbus.bridge.tcp.impl.protocol.FrameHelper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of delivering one published message to a number of subscribed sockets. {@code perSocket} copies the headers
+ * and encodes the frame for every socket, {@code encodeOnce} encodes it once and writes the same buffer to every socket.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FanOutBenchmark {
+
+  @Param({"1", "10", "100", "1000"})
+  public int subscribers;
+
+  private MultiMap headers;
+  private JsonObject body;
+  private BlackholeWriteStream[] sockets;
+
+  @Setup
+  public void setup(Blackhole blackhole) {
+    headers = MultiMap.caseInsensitiveMultiMap().add("source", "pricing").add("region", "eu");
+    final JsonArray quotes = new JsonArray();
+    for (int i = 0; i < 16; i++) {
+      quotes.add(new JsonObject().put("symbol", "SYM" + i).put("bid", 100.0 + i / 8.0).put("ask", 100.5 + i / 8.0));
+    }
+    body = new JsonObject().put("ts", 1_700_000_000_000L).put("quotes", quotes);
+
+    sockets = new BlackholeWriteStream[subscribers];
+    for (int i = 0; i < subscribers; i++) {
+      sockets[i] = new BlackholeWriteStream(blackhole);
+    }
+  }
+
+  private JsonObject copyHeaders() {
+    final JsonObject copy = new JsonObject();
+    for (Map.Entry<String, String> entry : headers) {
+      copy.put(entry.getKey(), entry.getValue());
+    }
+    return copy;
+  }
+
+  @Benchmark
+  public void perSocket() {
+    for (BlackholeWriteStream socket : sockets) {
+      FrameHelper.sendFrame(FrameCodecs.JSON, "message", "prices.eur", null, copyHeaders(), false, body, socket);
+    }
+  }
+
+  @Benchmark
+  public void encodeOnce() {
+    final Buffer frame = FrameHelper.encodeFrame(FrameCodecs.JSON, "message", "prices.eur", null, copyHeaders(), false, body);
+    for (BlackholeWriteStream socket : sockets) {
+      socket.write(frame);
+    }
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.eventbus.bridge.tcp.benchmarks;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.eventbus.bridge.tcp.impl.protocol.FrameCodecs;
+import io.vertx.ext.eventbus.bridge.tcp.impl.protocol.FrameHelper;
+import io.vertx.ext.eventbus.bridge.tcp.impl.protocol.FrameParser;
+import io.vertx.ext.eventbus.bridge.tcp.spi.FrameCodec;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the frame codecs on a numeric telemetry message, the frame size of each codec is printed on setup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrameCodecBenchmark {
+
+  @Param({"json", "cbor"})
+  public String codecName;
+
+  private FrameCodec codec;
+  private JsonObject headers;
+  private JsonObject body;
+  private Buffer frame;
+  private BlackholeWriteStream out;
+  private FrameParser parser;
+
+  @Setup
+  public void setup(Blackhole blackhole) {
+    codec = FrameCodecs.lookup(codecName);
+    headers = new JsonObject().put("source", "sensor-42");
+    final JsonArray samples = new JsonArray();
+    for (int i = 0; i < 32; i++) {
+      samples.add(new JsonObject().put("ts", 1_700_000_000_000L + i).put("value", 20.0 + i / 7.0).put("count", i));
+    }
+    body = new JsonObject().put("device", 42).put("samples", samples);
+
+    out = new BlackholeWriteStream(blackhole);
+    FrameHelper.sendFrame(codec, "message", "telemetry", null, headers, false, body, out);
+    frame = out.last();
+    System.out.println(codecName + " frame size: " + frame.length() + " bytes");
+
+    parser = new FrameParser(codec, Integer.MAX_VALUE, res -> blackhole.consume(res.result()));
+  }
+
+  @Benchmark
+  public void encode() {
+    FrameHelper.sendFrame(codec, "message", "telemetry", null, headers, false, body, out);
+  }
+
+  @Benchmark
+  public void decode() {
+    parser.handle(frame);
+  }
+}
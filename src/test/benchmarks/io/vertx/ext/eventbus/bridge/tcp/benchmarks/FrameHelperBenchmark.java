@@ -0,0 +1,90 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.eventbus.bridge.tcp.benchmarks;
+
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.eventbus.bridge.tcp.impl.protocol.FrameHelper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of encoding the frames sent to a client: {@code sendFrame} streams the envelope fields and the body,
+ * {@code writeFrame} encodes a ready made envelope, {@code sendErrFrame} is the error frame. {@code parseMsgHeaders} is
+ * the decoding of the headers of a client frame into delivery options.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrameHelperBenchmark {
+
+  @Param({"1", "32"})
+  public int fields;
+
+  private JsonObject headers;
+  private JsonObject body;
+  private JsonObject envelope;
+  private BlackholeWriteStream out;
+
+  @Setup
+  public void setup(Blackhole blackhole) {
+    headers = new JsonObject()
+      .put("timeout", 5000L)
+      .put("source", "pricing")
+      .put("region", "eu")
+      .put("traceId", "4bf92f3577b34da6a3ce929d0e0e4736");
+    body = new JsonObject();
+    for (int i = 0; i < fields; i++) {
+      if (i % 2 == 0) {
+        body.put("field" + i, "value" + i);
+      } else {
+        body.put("field" + i, i * 1.5);
+      }
+    }
+    envelope = new JsonObject()
+      .put("type", "message")
+      .put("address", "prices.eur")
+      .put("headers", headers)
+      .put("send", false)
+      .put("body", body);
+    out = new BlackholeWriteStream(blackhole);
+  }
+
+  @Benchmark
+  public void sendFrame() {
+    FrameHelper.sendFrame("message", "prices.eur", null, headers, false, body, out);
+  }
+
+  @Benchmark
+  public void writeFrame() {
+    FrameHelper.writeFrame(envelope, out);
+  }
+
+  @Benchmark
+  public void sendErrFrame() {
+    FrameHelper.sendErrFrame("access_denied", out);
+  }
+
+  @Benchmark
+  public DeliveryOptions parseMsgHeaders() {
+    return FrameHelper.parseMsgHeaders(new DeliveryOptions(), headers);
+  }
+}
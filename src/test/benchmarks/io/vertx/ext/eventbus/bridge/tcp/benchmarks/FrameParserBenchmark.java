@@ -0,0 +1,85 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.eventbus.bridge.tcp.benchmarks;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.eventbus.bridge.tcp.impl.protocol.FrameHelper;
+import io.vertx.ext.eventbus.bridge.tcp.impl.protocol.FrameParser;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of parsing a frame depending on how the stream is split in buffers. A chunk size of {@code 0} gives each frame
+ * its own buffer, smaller chunks split the frames across buffers, larger ones carry several frames per buffer. The
+ * score is per frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrameParserBenchmark {
+
+  private static final int FRAMES = 64;
+
+  @Param({"0", "16", "256", "4096"})
+  public int chunkSize;
+
+  private Buffer[] chunks;
+  private FrameParser parser;
+
+  @Setup
+  public void setup(Blackhole blackhole) {
+    final BlackholeWriteStream out = new BlackholeWriteStream(null);
+    final List<Buffer> frames = new ArrayList<>();
+    final Buffer stream = Buffer.buffer();
+    for (int i = 0; i < FRAMES; i++) {
+      FrameHelper.sendFrame("send", "orders." + i, "#reply" + i, new JsonObject()
+        .put("id", i)
+        .put("symbol", "SYM" + i)
+        .put("quantity", 100 + i)
+        .put("price", 20.0 + i / 8.0), out);
+      frames.add(out.last());
+      stream.appendBuffer(out.last());
+    }
+
+    if (chunkSize == 0) {
+      chunks = frames.toArray(new Buffer[0]);
+    } else {
+      final List<Buffer> split = new ArrayList<>();
+      for (int start = 0; start < stream.length(); start += chunkSize) {
+        split.add(stream.getBuffer(start, Math.min(start + chunkSize, stream.length())));
+      }
+      chunks = split.toArray(new Buffer[0]);
+    }
+
+    parser = new FrameParser(res -> blackhole.consume(res.result()));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(FRAMES)
+  public void handle() {
+    for (Buffer chunk : chunks) {
+      parser.handle(chunk);
+    }
+  }
+}
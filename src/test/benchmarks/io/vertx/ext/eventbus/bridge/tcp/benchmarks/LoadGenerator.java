@@ -0,0 +1,377 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.eventbus.bridge.tcp.benchmarks;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.VerticleBase;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.net.NetClient;
+import io.vertx.core.net.NetClientOptions;
+import io.vertx.core.net.NetServerOptions;
+import io.vertx.core.net.NetSocket;
+import io.vertx.ext.bridge.PermittedOptions;
+import io.vertx.ext.eventbus.bridge.tcp.TcpEventBusBridge;
+import io.vertx.ext.eventbus.bridge.tcp.TcpEventBusBridgeOptions;
+import io.vertx.ext.eventbus.bridge.tcp.impl.protocol.FrameHelper;
+import io.vertx.ext.eventbus.bridge.tcp.impl.protocol.FrameParser;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives a bridge embedded in the same process with many client connections, at a constant rate of operations, and
+ * records their latencies.
+ * <p>
+ * Operations are issued on a fixed schedule, whether the previous ones have completed or not, and a latency is
+ * measured from the time the operation was scheduled. When the generator or the bridge falls behind, the waiting time
+ * is part of the latency instead of being omitted (coordinated omission). The latencies measured from the time the
+ * frame was actually written are reported too, the difference shows how much the schedule slipped.
+ * <p>
+ * The operations are:
+ * <ul>
+ *   <li>{@code send}: a {@code send} frame, until the event bus consumer receives it</li>
+ *   <li>{@code publish}: a {@code publish} frame, until the event bus consumer receives it</li>
+ *   <li>{@code request}: a {@code send} frame with a reply address, until the client receives the response</li>
+ *   <li>{@code register}: a {@code register} frame followed by a {@code ping}, until the client receives the
+ *   {@code pong}, the previous address of the connection is unregistered first</li>
+ * </ul>
+ * Usage, the arguments are {@code name=value} pairs, all optional:
+ * <pre>
+ * mvn -Pbenchmarks test-compile exec:exec@load -Dload.args="connections=2000 rate=20000 duration=60"
+ * </pre>
+ * <ul>
+ *   <li>{@code connections}: the number of client connections, 1000 by default</li>
+ *   <li>{@code rate}: the operations per second of all the connections, 10000 by default</li>
+ *   <li>{@code duration} and {@code warmup}: the measured and the unmeasured run time in seconds, 30 and 5 by
+ *   default</li>
+ *   <li>{@code mix}: the weight of each operation, {@code send=40,publish=10,request=40,register=10} by default</li>
+ *   <li>{@code payload}: the length of the string carried by the frames, 64 by default</li>
+ *   <li>{@code port}: the port of the bridge, 7000 by default</li>
+ * </ul>
+ * Each connection uses two file descriptors of the process, the client and the bridge side, the limit of open files
+ * may have to be raised.
+ */
+public class LoadGenerator {
+
+  enum Op {
+    SEND, PUBLISH, REQUEST, REGISTER
+  }
+
+  // latencies over a minute are recorded as a minute
+  private static final long MAX_LATENCY = TimeUnit.MINUTES.toNanos(1);
+
+  // from the scheduled time, and from the time the frame was written
+  private static final Map<Op, Recorder> scheduled = new EnumMap<>(Op.class);
+  private static final Map<Op, Recorder> written = new EnumMap<>(Op.class);
+
+  private static final AtomicLong issued = new AtomicLong();
+  private static final AtomicLong completed = new AtomicLong();
+  private static final AtomicLong errors = new AtomicLong();
+  private static volatile boolean stopped;
+
+  static {
+    for (Op op : Op.values()) {
+      scheduled.put(op, new Recorder(MAX_LATENCY, 3));
+      written.put(op, new Recorder(MAX_LATENCY, 3));
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    final Map<String, String> options = parse(args);
+    final int connections = Integer.parseInt(options.getOrDefault("connections", "1000"));
+    final int rate = Integer.parseInt(options.getOrDefault("rate", "10000"));
+    final int duration = Integer.parseInt(options.getOrDefault("duration", "30"));
+    final int warmup = Integer.parseInt(options.getOrDefault("warmup", "5"));
+    final int payload = Integer.parseInt(options.getOrDefault("payload", "64"));
+    final int port = Integer.parseInt(options.getOrDefault("port", "7000"));
+    final int[] mix = mix(options.getOrDefault("mix", "send=40,publish=10,request=40,register=10"));
+
+    final Vertx vertx = Vertx.vertx();
+    final int instances = Math.max(1, Math.min(connections, Runtime.getRuntime().availableProcessors()));
+
+    vertx.eventBus().<JsonObject>consumer("load.publish", msg -> received(Op.PUBLISH, msg));
+
+    TcpEventBusBridge.create(vertx, new TcpEventBusBridgeOptions()
+        .addInboundPermitted(new PermittedOptions().setAddressRegex("load\\..+"))
+        .addOutboundPermitted(new PermittedOptions().setAddressRegex("load\\..+")),
+      new NetServerOptions().setTcpNoDelay(true).setAcceptBacklog(Math.max(1024, connections)))
+      .listen(port)
+      .await();
+
+    System.out.println("Connecting " + connections + " clients");
+    final JsonObject config = new JsonObject()
+      .put("port", port)
+      .put("rate", (double) rate / instances)
+      .put("payload", payload);
+    final List<Future<String>> deployments = new ArrayList<>();
+    for (int i = 0; i < instances; i++) {
+      // the remaining connections go to the first generator
+      final int extra = i == 0 ? connections % instances : 0;
+      deployments.add(vertx.deployVerticle(new Generator(mix), new DeploymentOptions()
+        .setConfig(config.copy().put("connections", connections / instances + extra))));
+    }
+    Future.all(deployments).await();
+
+    System.out.println("Warming up for " + warmup + "s at " + rate + " op/s");
+    report(warmup);
+    for (Op op : Op.values()) {
+      scheduled.get(op).reset();
+      written.get(op).reset();
+    }
+
+    System.out.println("Measuring for " + duration + "s");
+    report(duration);
+
+    // the operations in flight complete
+    stopped = true;
+    Thread.sleep(1000);
+
+    System.out.println();
+    System.out.printf("%-9s %-10s %10s %10s %10s %10s %10s %10s%n",
+      "op", "from", "count", "p50 (us)", "p99", "p99.9", "p99.99", "max");
+    for (Op op : Op.values()) {
+      print(op, "schedule", scheduled.get(op).getIntervalHistogram());
+      print(op, "write", written.get(op).getIntervalHistogram());
+    }
+    System.out.println("errors: " + errors.get());
+
+    vertx.close().await();
+  }
+
+  private static void report(int seconds) throws InterruptedException {
+    for (int i = 0; i < seconds; i++) {
+      final long issuedBefore = issued.get();
+      final long completedBefore = completed.get();
+      Thread.sleep(1000);
+      System.out.println("  " + (issued.get() - issuedBefore) + " op/s issued, "
+        + (completed.get() - completedBefore) + " op/s completed, " + errors.get() + " errors");
+    }
+  }
+
+  private static void print(Op op, String from, Histogram histogram) {
+    if (histogram.getTotalCount() == 0) {
+      return;
+    }
+    System.out.printf("%-9s %-10s %10d %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+      op.name().toLowerCase(), from, histogram.getTotalCount(),
+      micros(histogram.getValueAtPercentile(50)),
+      micros(histogram.getValueAtPercentile(99)),
+      micros(histogram.getValueAtPercentile(99.9)),
+      micros(histogram.getValueAtPercentile(99.99)),
+      micros(histogram.getMaxValue()));
+  }
+
+  private static double micros(long nanos) {
+    return nanos / 1000.0;
+  }
+
+  /**
+   * Record the latencies of an operation, the scheduled and written times are carried by the frame body.
+   */
+  private static void record(Op op, JsonObject body) {
+    final long now = System.nanoTime();
+    scheduled.get(op).recordValue(Math.min(now - body.getLong("t"), MAX_LATENCY));
+    written.get(op).recordValue(Math.min(now - body.getLong("w"), MAX_LATENCY));
+    completed.incrementAndGet();
+  }
+
+  private static void received(Op op, Message<JsonObject> msg) {
+    record(op, msg.body());
+  }
+
+  private static Map<String, String> parse(String[] args) {
+    final Map<String, String> options = new HashMap<>();
+    for (String arg : args) {
+      final int eq = arg.indexOf('=');
+      if (eq < 0) {
+        throw new IllegalArgumentException("Invalid argument " + arg + ", expected name=value");
+      }
+      options.put(arg.substring(arg.startsWith("--") ? 2 : 0, eq), arg.substring(eq + 1));
+    }
+    return options;
+  }
+
+  /**
+   * @return the cumulated weights of the operations
+   */
+  private static int[] mix(String mix) {
+    final int[] weights = new int[Op.values().length];
+    for (String entry : mix.split(",")) {
+      final String[] kv = entry.split("=");
+      weights[Op.valueOf(kv[0].trim().toUpperCase()).ordinal()] = Integer.parseInt(kv[1].trim());
+    }
+    for (int i = 1; i < weights.length; i++) {
+      weights[i] += weights[i - 1];
+    }
+    if (weights[weights.length - 1] <= 0) {
+      throw new IllegalArgumentException("Invalid mix " + mix);
+    }
+    return weights;
+  }
+
+  /**
+   * The connections of an event loop, and the schedule of their operations.
+   */
+  private static final class Generator extends VerticleBase {
+
+    private final int[] mix;
+    private final List<Client> clients = new ArrayList<>();
+    private String payload;
+    private long interval;
+    private long next;
+    private int current;
+
+    Generator(int[] mix) {
+      this.mix = mix;
+    }
+
+    @Override
+    public Future<?> start() {
+      final JsonObject config = config();
+      final char[] chars = new char[config.getInteger("payload")];
+      Arrays.fill(chars, 'x');
+      payload = new String(chars);
+      interval = (long) (TimeUnit.SECONDS.toNanos(1) / config.getDouble("rate"));
+
+      // the sends are spread on the consumers of the generators
+      vertx.eventBus().<JsonObject>consumer("load.send", msg -> received(Op.SEND, msg));
+      vertx.eventBus().<JsonObject>consumer("load.echo", msg -> msg.reply(msg.body()));
+
+      final NetClient client = vertx.createNetClient(new NetClientOptions().setTcpNoDelay(true));
+      return connect(client, config.getInteger("port"), config.getInteger("connections")).onSuccess(v -> {
+        next = System.nanoTime();
+        vertx.setPeriodic(1, id -> tick());
+      });
+    }
+
+    /**
+     * Connect by batches, so the accept queue of the bridge does not overflow.
+     */
+    private Future<Void> connect(NetClient netClient, int port, int remaining) {
+      if (remaining == 0) {
+        return Future.succeededFuture();
+      }
+      final int batch = Math.min(remaining, 100);
+      final List<Future<NetSocket>> sockets = new ArrayList<>();
+      for (int i = 0; i < batch; i++) {
+        sockets.add(netClient.connect(port, "localhost"));
+      }
+      return Future.all(sockets).compose(all -> {
+        for (Future<NetSocket> socket : sockets) {
+          clients.add(new Client(socket.result()));
+        }
+        return connect(netClient, port, remaining - batch);
+      });
+    }
+
+    /**
+     * Issue the operations whose time has come, late ones keep their scheduled time.
+     */
+    private void tick() {
+      if (stopped) {
+        return;
+      }
+      final long now = System.nanoTime();
+      while (next <= now) {
+        final Client client = clients.get(current++ % clients.size());
+        client.issue(op(), next);
+        next += interval;
+      }
+    }
+
+    private Op op() {
+      final int n = ThreadLocalRandom.current().nextInt(mix[mix.length - 1]);
+      for (int i = 0; i < mix.length; i++) {
+        if (n < mix[i]) {
+          return Op.values()[i];
+        }
+      }
+      throw new AssertionError();
+    }
+
+    private final class Client {
+
+      private final NetSocket socket;
+      // the register operations waiting for their pong, pongs arrive in order
+      private final ArrayDeque<JsonObject> registrations = new ArrayDeque<>();
+      private String registered;
+      private int seq;
+
+      Client(NetSocket socket) {
+        this.socket = socket;
+        socket.handler(new FrameParser(res -> {
+          if (res.failed()) {
+            errors.incrementAndGet();
+            return;
+          }
+          final JsonObject frame = res.result();
+          switch (frame.getString("type")) {
+            case "message":
+              record(Op.REQUEST, frame.getJsonObject("body"));
+              break;
+            case "pong":
+              record(Op.REGISTER, registrations.poll());
+              break;
+            default:
+              errors.incrementAndGet();
+              break;
+          }
+        }));
+      }
+
+      void issue(Op op, long time) {
+        final JsonObject body = new JsonObject()
+          .put("t", time)
+          .put("w", System.nanoTime())
+          .put("p", payload);
+        issued.incrementAndGet();
+        switch (op) {
+          case SEND:
+            FrameHelper.sendFrame("send", "load.send", body, socket);
+            break;
+          case PUBLISH:
+            FrameHelper.sendFrame("publish", "load.publish", body, socket);
+            break;
+          case REQUEST:
+            FrameHelper.sendFrame("send", "load.echo", "load.reply", body, socket);
+            break;
+          case REGISTER:
+            if (registered != null) {
+              FrameHelper.sendFrame("unregister", "load.register." + registered, null, socket);
+            }
+            registered = socket.localAddress().port() + "." + seq++;
+            registrations.add(body);
+            FrameHelper.sendFrame("register", "load.register." + registered, null, socket);
+            FrameHelper.sendFrame("ping", socket);
+            break;
+        }
+      }
+    }
+  }
+}
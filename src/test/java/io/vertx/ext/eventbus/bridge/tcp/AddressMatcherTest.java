@@ -0,0 +1,141 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.eventbus.bridge.tcp;
+
+import io.vertx.ext.bridge.PermittedOptions;
+import io.vertx.ext.eventbus.bridge.tcp.impl.AddressMatcher;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+public class AddressMatcherTest {
+
+  private static final List<String> ADDRESSES = Arrays.asList(
+    "", "a", "news", "news.", "news.feed", "news.feed.sport", "news\nfeed", "news. ", "newsfeed",
+    "orders.1", "orders.42", "orders.x", "orders.", "aa", "abab", "abba", "chat-room", "chat.room", "CHAT.room",
+    "user.1234.inbox", "user..inbox", "metrics.cpu", "metrics", "NEWS", "xa.b", "xaxb", "ac");
+
+  /**
+   * The previous implementation: every rule is checked with a regex.
+   */
+  private static boolean linear(List<PermittedOptions> permitteds, String address) {
+    for (PermittedOptions permitted : permitteds) {
+      if (permitted.getAddress() != null) {
+        if (permitted.getAddress().equals(address)) {
+          return true;
+        }
+      } else if (permitted.getAddressRegex() == null || Pattern.matches(permitted.getAddressRegex(), address)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static void assertSameDecisions(List<PermittedOptions> permitteds) {
+    for (int cacheSize : new int[]{0, 4}) {
+      final AddressMatcher matcher = AddressMatcher.compile(permitteds, cacheSize);
+      // twice, the second time from the cache
+      for (int i = 0; i < 2; i++) {
+        for (String address : ADDRESSES) {
+          assertEquals(address, linear(permitteds, address), matcher.matches(address));
+        }
+      }
+    }
+  }
+
+  private static PermittedOptions address(String address) {
+    return new PermittedOptions().setAddress(address);
+  }
+
+  private static PermittedOptions regex(String regex) {
+    return new PermittedOptions().setAddressRegex(regex);
+  }
+
+  @Test
+  public void testExact() {
+    assertSameDecisions(Arrays.asList(address("news"), address("a"), address("")));
+  }
+
+  @Test
+  public void testPrefixes() {
+    assertSameDecisions(Arrays.asList(regex("news\\..*"), regex("orders\\..+"), regex("chat-.*"), regex(".*")));
+    assertSameDecisions(Arrays.asList(regex("news.+"), regex("metrics.*"), regex("news\\.feed\\..+")));
+  }
+
+  @Test
+  public void testLiteralRegex() {
+    assertSameDecisions(Arrays.asList(regex("news\\.feed"), regex("chat-room"), regex("")));
+  }
+
+  @Test
+  public void testGeneralRegex() {
+    assertSameDecisions(Arrays.asList(
+      regex("orders\\.[0-9]+"), regex("user\\.\\d+\\.inbox"), regex("(?i)chat\\.room"), regex("(ab)\\1"), regex("a|news")));
+  }
+
+  @Test
+  public void testNamedGroups() {
+    // the same group name in two rules, a lookbehind is not a named group
+    assertSameDecisions(Arrays.asList(
+      regex("orders\\.(?<id>[0-9]+)"), regex("user\\.(?<id>\\d+)\\.inbox"), regex("(?<kind>ab)\\k<kind>"),
+      regex("chat.(?<!x)room")));
+  }
+
+  @Test
+  public void testInlineFlags() {
+    // a comment or a quote would swallow the end of a combined pattern, flags would leak into the next rules
+    assertSameDecisions(Arrays.asList(regex("(?x)a # c"), regex("orders\\.[0-9]+")));
+    assertSameDecisions(Arrays.asList(regex("x\\Qa.b"), regex("orders\\.[0-9]+")));
+    assertSameDecisions(Arrays.asList(regex("orders\\.[0-9]+"), regex("(?i)chat\\.room"), regex("new[s]")));
+    assertSameDecisions(Arrays.asList(regex("(?x:a c)"), regex("(?=n)new[s]"), regex("(?>a)c")));
+  }
+
+  @Test
+  public void testMatchAll() {
+    assertSameDecisions(Arrays.asList(address("news"), new PermittedOptions()));
+  }
+
+  @Test
+  public void testNoRules() {
+    assertSameDecisions(Collections.emptyList());
+  }
+
+  @Test
+  public void testMixed() {
+    final List<PermittedOptions> permitteds = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      permitteds.add(address("address." + i));
+      permitteds.add(regex("prefix" + i + "\\..*"));
+      permitteds.add(regex("rule" + i + "\\.[a-z]+"));
+    }
+    permitteds.add(regex("orders\\.[0-9]+"));
+    permitteds.add(regex("news\\..+"));
+    assertSameDecisions(permitteds);
+
+    final AddressMatcher matcher = AddressMatcher.compile(permitteds);
+    assertTrue(matcher.matches("address.99"));
+    assertTrue(matcher.matches("prefix42.anything"));
+    assertTrue(matcher.matches("rule7.abc"));
+    assertFalse(matcher.matches("rule7.ABC"));
+    assertFalse(matcher.matches("prefix42"));
+  }
+}
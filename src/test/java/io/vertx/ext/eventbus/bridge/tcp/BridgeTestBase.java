@@ -0,0 +1,67 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.eventbus.bridge.tcp;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.net.NetServerOptions;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import org.junit.After;
+import org.junit.Before;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * A Vert.x instance per test, the test starts a bridge on port 7000 with its own options.
+ */
+public abstract class BridgeTestBase {
+
+  protected Vertx vertx;
+
+  @Before
+  public void before(TestContext context) {
+    vertx = Vertx.vertx();
+  }
+
+  @After
+  public void after(TestContext context) {
+    vertx.close().onComplete(context.asyncAssertSuccess());
+  }
+
+  protected TcpEventBusBridge startBridge(TestContext context, TcpEventBusBridgeOptions options) {
+    return startBridge(context, options, new NetServerOptions());
+  }
+
+  protected TcpEventBusBridge startBridge(TestContext context, TcpEventBusBridgeOptions options, NetServerOptions netServerOptions) {
+    final Async async = context.async();
+    final TcpEventBusBridge bridge = TcpEventBusBridge.create(vertx, options, netServerOptions);
+    bridge.listen(7000).onComplete(context.asyncAssertSuccess(v -> async.complete()));
+    async.await();
+    return bridge;
+  }
+
+  /**
+   * Run {@code then} once the condition holds, for the events reported asynchronously by the bridge.
+   */
+  protected void waitUntil(BooleanSupplier condition, Runnable then) {
+    vertx.setPeriodic(10, id -> {
+      if (condition.getAsBoolean()) {
+        vertx.cancelTimer(id);
+        then.run();
+      }
+    });
+  }
+}
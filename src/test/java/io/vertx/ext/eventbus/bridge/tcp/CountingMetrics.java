@@ -0,0 +1,112 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.eventbus.bridge.tcp;
+
+import io.vertx.ext.eventbus.bridge.tcp.spi.metrics.TcpEventBusBridgeMetrics;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Metrics counting the events the tests check.
+ */
+public class CountingMetrics implements TcpEventBusBridgeMetrics {
+
+  public final AtomicInteger framesSent = new AtomicInteger();
+  public final AtomicLong frameTooLarge = new AtomicLong();
+  public final AtomicInteger dropped = new AtomicInteger();
+  public final AtomicInteger queued = new AtomicInteger();
+  // the max number of queued messages
+  public final AtomicInteger peakQueued = new AtomicInteger();
+  public final AtomicInteger compressed = new AtomicInteger();
+  public final AtomicLong compressedInput = new AtomicLong();
+  public final AtomicLong compressedOutput = new AtomicLong();
+  public final AtomicInteger decompressed = new AtomicInteger();
+  public final Queue<String> expired = new ConcurrentLinkedQueue<>();
+  public final AtomicInteger orphaned = new AtomicInteger();
+  public final AtomicInteger inflight = new AtomicInteger();
+  // the max number of in-flight requests
+  public final AtomicInteger peakInflight = new AtomicInteger();
+  public final AtomicInteger ended = new AtomicInteger();
+  public final AtomicInteger cancelled = new AtomicInteger();
+  public final AtomicInteger rejected = new AtomicInteger();
+
+  @Override
+  public void frameSent() {
+    framesSent.incrementAndGet();
+  }
+
+  @Override
+  public void frameTooLarge(long length) {
+    frameTooLarge.set(length);
+  }
+
+  @Override
+  public void messageDropped(String address) {
+    dropped.incrementAndGet();
+  }
+
+  @Override
+  public void writeQueueChanged(int delta) {
+    peakQueued.accumulateAndGet(queued.addAndGet(delta), Math::max);
+  }
+
+  @Override
+  public void frameCompressed(int length, int compressedLength, long nanos) {
+    compressed.incrementAndGet();
+    compressedInput.addAndGet(length);
+    compressedOutput.addAndGet(compressedLength);
+  }
+
+  @Override
+  public void frameDecompressed(int compressedLength, int length, long nanos) {
+    decompressed.incrementAndGet();
+  }
+
+  @Override
+  public void replyExpired(String address) {
+    expired.add(address);
+  }
+
+  @Override
+  public void repliesOrphaned(int count) {
+    orphaned.addAndGet(count);
+  }
+
+  @Override
+  public void requestStarted(String address) {
+    peakInflight.accumulateAndGet(inflight.incrementAndGet(), Math::max);
+  }
+
+  @Override
+  public void requestEnded(String address, long nanos) {
+    inflight.decrementAndGet();
+    ended.incrementAndGet();
+  }
+
+  @Override
+  public void requestCancelled(String address) {
+    inflight.decrementAndGet();
+    cancelled.incrementAndGet();
+  }
+
+  @Override
+  public void requestRejected(String address) {
+    rejected.incrementAndGet();
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.eventbus.bridge.tcp;
+
+import com.fasterxml.jackson.core.JsonParser;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.eventbus.ReplyFailure;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.json.jackson.HybridJacksonPool;
+import io.vertx.core.json.jackson.JacksonCodec;
+import io.vertx.core.streams.WriteStream;
+import io.vertx.ext.eventbus.bridge.tcp.impl.protocol.FrameCodecs;
+import io.vertx.ext.eventbus.bridge.tcp.impl.protocol.FrameHelper;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FrameHelperTest {
+
+  /**
+   * Collects the written buffers.
+   */
+  static class BufferCollector implements WriteStream<Buffer> {
+
+    final List<Buffer> buffers = new ArrayList<>();
+
+    @Override
+    public WriteStream<Buffer> exceptionHandler(Handler<Throwable> handler) {
+      return this;
+    }
+
+    @Override
+    public Future<Void> write(Buffer data) {
+      buffers.add(data);
+      return Future.succeededFuture();
+    }
+
+    @Override
+    public Future<Void> end() {
+      return Future.succeededFuture();
+    }
+
+    @Override
+    public WriteStream<Buffer> setWriteQueueMaxSize(int maxSize) {
+      return this;
+    }
+
+    @Override
+    public boolean writeQueueFull() {
+      return false;
+    }
+
+    @Override
+    public WriteStream<Buffer> drainHandler(Handler<Void> handler) {
+      return this;
+    }
+
+    JsonObject frame(int index) {
+      final Buffer buffer = buffers.get(index);
+      assertEquals(buffer.length() - 4, buffer.getInt(0));
+      return new JsonObject(buffer.getBuffer(4, buffer.length()));
+    }
+  }
+
+  @Test
+  public void testSendFrame() {
+    final BufferCollector out = new BufferCollector();
+    final JsonObject body = new JsonObject()
+      .put("value", "vert.x €")
+      .put("list", new JsonArray().add(1).add(2.5).add(true).addNull())
+      .put("bin", Buffer.buffer("bytes"));
+
+    FrameHelper.sendFrame("message", "addr", "reply", new JsonObject().put("h", "v"), true, body, out);
+
+    final JsonObject frame = out.frame(0);
+    assertEquals("message", frame.getString("type"));
+    assertEquals("addr", frame.getString("address"));
+    assertEquals("reply", frame.getString("replyAddress"));
+    assertEquals(new JsonObject().put("h", "v"), frame.getJsonObject("headers"));
+    assertTrue(frame.getBoolean("send"));
+    // same encoding as the JsonObject codec
+    assertEquals(new JsonObject(body.encode()), frame.getJsonObject("body"));
+  }
+
+  @Test
+  public void testEmptyHeadersAreNotSent() {
+    final BufferCollector out = new BufferCollector();
+
+    FrameHelper.sendFrame("message", "addr", null, new JsonObject(), false, "text", out);
+
+    final JsonObject frame = out.frame(0);
+    assertFalse(frame.containsKey("headers"));
+    assertFalse(frame.containsKey("replyAddress"));
+    assertEquals("text", frame.getString("body"));
+  }
+
+  @Test
+  public void testErrFrames() {
+    final BufferCollector out = new BufferCollector();
+
+    FrameHelper.sendErrFrame("access_denied", out);
+    FrameHelper.sendErrFrame("addr", "reply", new ReplyException(ReplyFailure.RECIPIENT_FAILURE, 42, "oops"), out);
+
+    assertEquals(new JsonObject().put("type", "err").put("message", "access_denied"), out.frame(0));
+
+    final JsonObject frame = out.frame(1);
+    assertEquals("reply", frame.getString("address"));
+    assertEquals("addr", frame.getString("sourceAddress"));
+    assertEquals(42, (int) frame.getInteger("failureCode"));
+    assertEquals("RECIPIENT_FAILURE", frame.getString("failureType"));
+    assertEquals("oops", frame.getString("message"));
+  }
+
+  @Test
+  public void testWriteFrame() {
+    final BufferCollector out = new BufferCollector();
+    final JsonObject payload = new JsonObject().put("type", "ping").put("n", 1L);
+
+    FrameHelper.writeFrame(payload, out);
+
+    assertEquals(payload, out.frame(0));
+  }
+
+  @Test
+  public void testEncodeFrame() {
+    final BufferCollector out = new BufferCollector();
+    final JsonObject body = new JsonObject().put("value", "vert.x");
+
+    FrameHelper.sendFrame("message", "addr", null, null, false, body, out);
+    final Buffer frame = FrameHelper.encodeFrame(FrameCodecs.JSON, "message", "addr", null, null, false, body);
+    assertEquals(out.buffers.get(0), frame);
+
+    // the same frame can be written many times
+    out.write(frame);
+    out.write(frame);
+    assertEquals(out.frame(1), out.frame(2));
+  }
+
+  @Test
+  public void testJsonCodecFactory() throws Exception {
+    // the frames are parsed with the limits and the buffer pool of the Vert.x JSON codec
+    try (JsonParser parser = JacksonCodec.createParser("")) {
+      assertEquals(parser.streamReadConstraints().getMaxNestingDepth(),
+        FrameCodecs.JSON.factory().streamReadConstraints().getMaxNestingDepth());
+      assertEquals(parser.streamReadConstraints().getMaxStringLength(),
+        FrameCodecs.JSON.factory().streamReadConstraints().getMaxStringLength());
+    }
+    assertSame(HybridJacksonPool.getInstance(), FrameCodecs.JSON.factory()._getRecyclerPool());
+  }
+}
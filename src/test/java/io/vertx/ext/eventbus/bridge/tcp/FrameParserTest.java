@@ -0,0 +1,356 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.eventbus.bridge.tcp;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.eventbus.bridge.tcp.impl.protocol.FrameHelper;
+import io.vertx.ext.eventbus.bridge.tcp.impl.protocol.FrameParser;
+import io.vertx.ext.eventbus.bridge.tcp.impl.protocol.FrameTooLargeException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+
+import static org.junit.Assert.*;
+
+public class FrameParserTest {
+
+  private static Buffer frame(JsonObject json) {
+    final Buffer data = json.toBuffer();
+    return Buffer.buffer().appendInt(data.length()).appendBuffer(data);
+  }
+
+  static Buffer compress(Buffer frame) {
+    final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    deflater.setInput(frame.getBytes(4, frame.length()));
+    deflater.finish();
+    final byte[] bytes = new byte[frame.length() + 64];
+    final int length = deflater.deflate(bytes);
+    deflater.end();
+    return Buffer.buffer()
+      .appendInt(length + 1)
+      .appendByte(FrameHelper.COMPRESSED_FRAME)
+      .appendBytes(bytes, 0, length);
+  }
+
+  @Test
+  public void testDecodeUTF8() {
+    final List<JsonObject> frames = new ArrayList<>();
+    final FrameParser parser = new FrameParser(res -> {
+      assertTrue(res.succeeded());
+      frames.add(res.result());
+    });
+
+    final JsonObject json = new JsonObject()
+      .put("type", "send")
+      .put("address", "test")
+      .put("body", "a\u00e7\u00e3o \u20ac \ud83d\ude00");
+
+    final Buffer data = frame(json);
+    // split in the middle of the multi byte characters
+    final int split = data.length() - 3;
+    parser.handle(data.getBuffer(0, split));
+    assertTrue(frames.isEmpty());
+    parser.handle(data.getBuffer(split, data.length()));
+
+    assertEquals(1, frames.size());
+    assertEquals(json, frames.get(0));
+  }
+
+  @Test
+  public void testDecodeInvalidJson() {
+    final List<Throwable> failures = new ArrayList<>();
+    final List<JsonObject> frames = new ArrayList<>();
+    final FrameParser parser = new FrameParser(res -> {
+      if (res.failed()) {
+        failures.add(res.cause());
+      } else {
+        frames.add(res.result());
+      }
+    });
+
+    final byte[] garbage = "{not json".getBytes();
+    final Buffer data = Buffer.buffer()
+      .appendInt(garbage.length).appendBytes(garbage)
+      .appendBuffer(frame(new JsonObject().put("type", "ping")));
+
+    parser.handle(data);
+
+    assertEquals(1, failures.size());
+    assertTrue(failures.get(0) instanceof DecodeException);
+    // the parser recovers on the next frame
+    assertEquals(1, frames.size());
+    assertEquals("ping", frames.get(0).getString("type"));
+  }
+
+  @Test
+  public void testManyFramesInOneRead() {
+    final List<JsonObject> frames = new ArrayList<>();
+    final FrameParser parser = new FrameParser(res -> frames.add(res.result()));
+
+    final Buffer data = Buffer.buffer();
+    for (int i = 0; i < 100; i++) {
+      data.appendBuffer(frame(new JsonObject().put("type", "send").put("body", i)));
+    }
+    parser.handle(data);
+
+    assertEquals(100, frames.size());
+    for (int i = 0; i < 100; i++) {
+      assertEquals(i, (int) frames.get(i).getInteger("body"));
+    }
+  }
+
+  @Test
+  public void testSingleByteReads() {
+    final List<JsonObject> frames = new ArrayList<>();
+    final FrameParser parser = new FrameParser(res -> frames.add(res.result()));
+
+    final Buffer data = Buffer.buffer()
+      .appendBuffer(frame(new JsonObject().put("type", "ping")))
+      .appendBuffer(frame(new JsonObject().put("type", "send").put("address", "test")))
+      .appendBuffer(frame(new JsonObject()));
+
+    for (int i = 0; i < data.length(); i++) {
+      parser.handle(data.getBuffer(i, i + 1));
+    }
+
+    assertEquals(3, frames.size());
+    assertEquals("ping", frames.get(0).getString("type"));
+    assertEquals("test", frames.get(1).getString("address"));
+    assertTrue(frames.get(2).isEmpty());
+  }
+
+  @Test
+  public void testLargeFrameInSingleByteReads() {
+    final List<JsonObject> frames = new ArrayList<>();
+    final FrameParser parser = new FrameParser(res -> frames.add(res.result()));
+
+    final char[] chars = new char[10 * 1024 * 1024];
+    Arrays.fill(chars, 'x');
+    final String body = new String(chars);
+
+    final Buffer data = frame(new JsonObject().put("type", "send").put("body", body));
+    final Buffer oneByte = Buffer.buffer(1);
+    for (int i = 0; i < data.length(); i++) {
+      oneByte.setByte(0, data.getByte(i));
+      parser.handle(oneByte);
+    }
+
+    assertEquals(1, frames.size());
+    assertEquals(body, frames.get(0).getString("body"));
+  }
+
+  @Test
+  public void testRandomChunking() {
+    final List<JsonObject> frames = new ArrayList<>();
+    final FrameParser parser = new FrameParser(res -> frames.add(res.result()));
+    final Random random = new Random(42);
+
+    final Buffer data = Buffer.buffer();
+    for (int i = 0; i < 1000; i++) {
+      final char[] chars = new char[random.nextInt(4096)];
+      Arrays.fill(chars, 'y');
+      data.appendBuffer(frame(new JsonObject().put("body", i).put("padding", new String(chars))));
+    }
+
+    int offset = 0;
+    while (offset < data.length()) {
+      final int end = Math.min(data.length(), offset + 1 + random.nextInt(8192));
+      parser.handle(data.getBuffer(offset, end));
+      offset = end;
+    }
+
+    assertEquals(1000, frames.size());
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(i, (int) frames.get(i).getInteger("body"));
+    }
+  }
+
+  @Test
+  public void testSkipFrameTooLarge() {
+    final List<Throwable> failures = new ArrayList<>();
+    final List<JsonObject> frames = new ArrayList<>();
+    final FrameParser parser = new FrameParser(1024, res -> {
+      if (res.failed()) {
+        failures.add(res.cause());
+      } else {
+        frames.add(res.result());
+      }
+    });
+
+    final char[] chars = new char[4096];
+    Arrays.fill(chars, 'z');
+
+    final Buffer data = Buffer.buffer()
+      .appendBuffer(frame(new JsonObject().put("body", 1)))
+      .appendBuffer(frame(new JsonObject().put("body", new String(chars))))
+      .appendBuffer(frame(new JsonObject().put("body", 2)));
+
+    // in a single read
+    parser.handle(data);
+    // and in small chunks
+    for (int i = 0; i < data.length(); i += 7) {
+      parser.handle(data.getBuffer(i, Math.min(data.length(), i + 7)));
+    }
+
+    assertEquals(2, failures.size());
+    for (Throwable failure : failures) {
+      assertTrue(failure instanceof FrameTooLargeException);
+      assertTrue(((FrameTooLargeException) failure).length() > 4096);
+    }
+    assertEquals(4, frames.size());
+    assertEquals(1, (int) frames.get(0).getInteger("body"));
+    assertEquals(2, (int) frames.get(1).getInteger("body"));
+    assertEquals(1, (int) frames.get(2).getInteger("body"));
+    assertEquals(2, (int) frames.get(3).getInteger("body"));
+  }
+
+  @Test
+  public void testRejectFrameBeforeBuffering() {
+    final List<Throwable> failures = new ArrayList<>();
+    final FrameParser parser = new FrameParser(1024 * 1024, res -> {
+      assertTrue(res.failed());
+      failures.add(res.cause());
+    });
+
+    // announce a ~4 GB frame (unsigned length), only the prefix has arrived
+    parser.handle(Buffer.buffer().appendInt(0xfffffff0));
+
+    assertEquals(1, failures.size());
+    assertEquals(0xfffffff0L, ((FrameTooLargeException) failures.get(0)).length());
+  }
+
+  @Test
+  public void testBinaryFrames() {
+    final List<JsonObject> frames = new ArrayList<>();
+    final FrameParser parser = new FrameParser(res -> {
+      assertTrue(res.succeeded());
+      frames.add(res.result());
+    });
+
+    final Buffer body = Buffer.buffer(new byte[]{0, 1, 2, (byte) 0xff, '{'});
+    final FrameHelperTest.BufferCollector out = new FrameHelperTest.BufferCollector();
+    FrameHelper.sendBinaryFrame("send", "bin", "reply", new JsonObject().put("h", "v"), null, body, out);
+    FrameHelper.sendFrame("send", "json", "text", out);
+    FrameHelper.sendBinaryFrame("publish", "bin", null, null, null, Buffer.buffer(), out);
+
+    final Buffer data = Buffer.buffer();
+    out.buffers.forEach(data::appendBuffer);
+    for (int i = 0; i < data.length(); i++) {
+      parser.handle(data.getBuffer(i, i + 1));
+    }
+
+    assertEquals(3, frames.size());
+    assertEquals("send", frames.get(0).getString("type"));
+    assertEquals("bin", frames.get(0).getString("address"));
+    assertEquals("reply", frames.get(0).getString("replyAddress"));
+    assertEquals("v", frames.get(0).getJsonObject("headers").getString("h"));
+    assertEquals(body, frames.get(0).getBuffer("body"));
+    assertEquals("text", frames.get(1).getString("body"));
+    assertEquals(Buffer.buffer(), frames.get(2).getBuffer("body"));
+  }
+
+  @Test
+  public void testInvalidBinaryFrame() {
+    final List<Throwable> failures = new ArrayList<>();
+    final FrameParser parser = new FrameParser(res -> {
+      assertTrue(res.failed());
+      failures.add(res.cause());
+    });
+
+    // header length larger than the frame
+    parser.handle(Buffer.buffer().appendInt(5).appendByte(FrameHelper.BINARY_FRAME).appendInt(100));
+
+    assertEquals(1, failures.size());
+    assertTrue(failures.get(0) instanceof DecodeException);
+  }
+
+  @Test
+  public void testCompressedFrames() {
+    final List<JsonObject> frames = new ArrayList<>();
+    final AtomicInteger negotiated = new AtomicInteger();
+    final FrameParser parser = new FrameParser(res -> {
+      assertTrue(res.succeeded());
+      frames.add(res.result());
+    }).compressionHandler(v -> negotiated.incrementAndGet());
+
+    final char[] chars = new char[4096];
+    Arrays.fill(chars, 'c');
+    final JsonObject json = new JsonObject().put("type", "send").put("address", "test").put("body", new String(chars));
+
+    final FrameHelperTest.BufferCollector out = new FrameHelperTest.BufferCollector();
+    FrameHelper.sendBinaryFrame("send", "bin", null, null, null, Buffer.buffer(new byte[]{1, 2, 3}), out);
+
+    final Buffer data = Buffer.buffer()
+      .appendBuffer(compress(frame(json)))
+      .appendBuffer(frame(new JsonObject().put("type", "ping")))
+      .appendBuffer(compress(out.buffers.get(0)));
+    for (int i = 0; i < data.length(); i += 5) {
+      parser.handle(data.getBuffer(i, Math.min(data.length(), i + 5)));
+    }
+
+    assertEquals(1, negotiated.get());
+    assertEquals(3, frames.size());
+    assertEquals(json, frames.get(0));
+    assertEquals("ping", frames.get(1).getString("type"));
+    assertEquals(Buffer.buffer(new byte[]{1, 2, 3}), frames.get(2).getBuffer("body"));
+  }
+
+  @Test
+  public void testCompressedFrameTooLarge() {
+    final List<Throwable> failures = new ArrayList<>();
+    final FrameParser parser = new FrameParser(1024, res -> {
+      assertTrue(res.failed());
+      failures.add(res.cause());
+    }).compressionHandler(v -> {});
+
+    final char[] chars = new char[64 * 1024];
+    Arrays.fill(chars, 'z');
+    final Buffer data = compress(frame(new JsonObject().put("body", new String(chars))));
+    // the compressed frame is within the limit, its payload is not
+    assertTrue(data.length() < 1024);
+    parser.handle(data);
+    // garbage
+    parser.handle(Buffer.buffer().appendInt(3).appendByte(FrameHelper.COMPRESSED_FRAME).appendByte((byte) 0xff).appendByte((byte) 0xff));
+
+    assertEquals(2, failures.size());
+    assertTrue(failures.get(0) instanceof FrameTooLargeException);
+    assertTrue(failures.get(1) instanceof DecodeException);
+  }
+
+  @Test
+  public void testClose() {
+    final List<AsyncResult<JsonObject>> results = new ArrayList<>();
+    final FrameParser parser = new FrameParser(results::add).compressionHandler(v -> {});
+    final Buffer data = compress(frame(new JsonObject().put("type", "ping")));
+
+    parser.handle(data);
+    parser.close();
+    // the inflater has been released, compressed frames are no longer decoded
+    parser.handle(data);
+
+    assertEquals(2, results.size());
+    assertTrue(results.get(0).succeeded());
+    assertTrue(results.get(1).failed());
+  }
+}
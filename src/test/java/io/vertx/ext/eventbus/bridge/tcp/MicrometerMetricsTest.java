@@ -0,0 +1,231 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.eventbus.bridge.tcp;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.net.NetClient;
+import io.vertx.core.net.NetServerOptions;
+import io.vertx.ext.bridge.BridgeEventType;
+import io.vertx.ext.bridge.PermittedOptions;
+import io.vertx.ext.eventbus.bridge.tcp.impl.protocol.FrameHelper;
+import io.vertx.ext.eventbus.bridge.tcp.impl.protocol.FrameParser;
+import io.vertx.ext.eventbus.bridge.tcp.metrics.MicrometerTcpEventBusBridgeMetrics;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+@RunWith(VertxUnitRunner.class)
+public class MicrometerMetricsTest {
+
+  private Vertx vertx;
+  private MeterRegistry registry;
+
+  @Before
+  public void before(TestContext context) {
+    vertx = Vertx.vertx();
+    registry = new SimpleMeterRegistry();
+
+    vertx.eventBus().consumer("echo", msg -> msg.reply(msg.body()));
+
+    final Async async = context.async();
+    TcpEventBusBridge.create(vertx, new TcpEventBusBridgeOptions()
+        .addInboundPermitted(new PermittedOptions().setAddress("echo"))
+        .setMetrics(new MicrometerTcpEventBusBridgeMetrics(registry)),
+      new NetServerOptions(),
+      be -> be.complete(true))
+      .listen(7000)
+      .onComplete(context.asyncAssertSuccess(bridge -> async.complete()));
+    async.await();
+  }
+
+  @After
+  public void after(TestContext context) {
+    vertx.close().onComplete(context.asyncAssertSuccess());
+  }
+
+  private double counter(String name, String... tags) {
+    return registry.get("vertx.tcp.bridge." + name).tags(tags).counter().count();
+  }
+
+  @Test
+  public void testMetrics(TestContext context) {
+    final NetClient client = vertx.createNetClient();
+    final Async async = context.async();
+
+    client.connect(7000, "localhost").onComplete(context.asyncAssertSuccess(socket -> {
+
+      final FrameParser parser = new FrameParser(parse -> {
+        context.assertTrue(parse.succeeded());
+        final JsonObject frame = parse.result();
+        if ("message".equals(frame.getString("type"))) {
+          // the response of the request
+          FrameHelper.sendFrame("publish", "denied", new JsonObject(), socket);
+        } else {
+          context.assertEquals("access_denied", frame.getString("message"));
+
+          context.assertEquals(1.0, registry.get("vertx.tcp.bridge.connections").gauge().value());
+          context.assertEquals(2.0, counter("frames.received"));
+          context.assertEquals(1.0, counter("frames.processed", "type", "send", "address", "echo"));
+          // a denied address gets no tag of its own
+          context.assertEquals(1.0, counter("access.denied", "direction", "inbound", "address", MicrometerTcpEventBusBridgeMetrics.OTHER_ADDRESS));
+          context.assertEquals(1L, registry.get("vertx.tcp.bridge.requests").tags("address", "echo").timer().count());
+          context.assertEquals(0.0, registry.get("vertx.tcp.bridge.requests.inflight").gauge().value());
+          context.assertEquals(1L, registry.get("vertx.tcp.bridge.events").tags("type", "send", "outcome", "accepted").timer().count());
+          context.assertEquals(1L, registry.get("vertx.tcp.bridge.events").tags("type", "publish", "outcome", "accepted").timer().count());
+          context.assertTrue(counter("bytes.read") > 0);
+          context.assertTrue(counter("bytes.written") > 0);
+          context.assertTrue(counter("frames.sent") >= 1);
+
+          socket.close();
+          // the server side of the connection closes asynchronously
+          vertx.setPeriodic(10, id -> {
+            if (registry.get("vertx.tcp.bridge.connections").gauge().value() == 0) {
+              vertx.cancelTimer(id);
+              client.close();
+              async.complete();
+            }
+          });
+        }
+      });
+
+      socket.handler(parser);
+
+      FrameHelper.sendFrame("send", "echo", "#reply", new JsonObject().put("value", "vert.x"), socket);
+    }));
+  }
+
+  @Test
+  public void testReplyAddresses(TestContext context) {
+    final MeterRegistry registry = new SimpleMeterRegistry();
+    final Async listen = context.async();
+    // room for the two permitted addresses only
+    TcpEventBusBridge.create(vertx, new TcpEventBusBridgeOptions()
+        .addInboundPermitted(new PermittedOptions().setAddress("echo"))
+        .addOutboundPermitted(new PermittedOptions().setAddress("ask"))
+        .setMetrics(new MicrometerTcpEventBusBridgeMetrics(registry, 2)),
+      new NetServerOptions(),
+      be -> be.complete(true))
+      .listen(7001)
+      .onComplete(context.asyncAssertSuccess(bridge -> listen.complete()));
+    listen.await();
+
+    final Async async = context.async();
+    vertx.createNetClient().connect(7001, "localhost").onComplete(context.asyncAssertSuccess(socket -> {
+      socket.handler(new FrameParser(parse -> {
+        final JsonObject frame = parse.result();
+        if ("ask".equals(frame.getString("address"))) {
+          if (frame.getJsonObject("body").getInteger("n") < 2) {
+            FrameHelper.sendFrame("send", frame.getString("replyAddress"), new JsonObject(), socket);
+          } else {
+            // a reply that expects a reply
+            FrameHelper.sendFrame("send", frame.getString("replyAddress"), "#again", new JsonObject(), socket);
+          }
+        } else if ("#again".equals(frame.getString("address"))) {
+          FrameHelper.sendFrame("send", "echo", new JsonObject(), socket);
+        }
+      }));
+
+      FrameHelper.sendFrame("register", "ask", null, socket);
+      vertx.setPeriodic(10, id -> {
+        if (registry.find("vertx.tcp.bridge.frames.processed").tags("type", "register").counter() != null) {
+          vertx.cancelTimer(id);
+          for (int n = 0; n < 3; n++) {
+            vertx.eventBus().request("ask", new JsonObject().put("n", n)).onComplete(context.asyncAssertSuccess(reply -> {
+              if (reply.replyAddress() != null) {
+                reply.reply(new JsonObject());
+              }
+            }));
+          }
+        }
+      });
+
+      vertx.setPeriodic(10, id -> {
+        if (registry.find("vertx.tcp.bridge.frames.processed").tags("type", "send", "address", "echo").counter() != null) {
+          vertx.cancelTimer(id);
+          // the replies are measured under the address of the requests, the permitted addresses keep their tags
+          context.assertEquals(3.0, registry.get("vertx.tcp.bridge.frames.processed")
+            .tags("type", "send", "address", "ask").counter().count());
+          context.assertEquals(1.0, registry.get("vertx.tcp.bridge.frames.processed")
+            .tags("type", "send", "address", "echo").counter().count());
+          context.assertNull(registry.find("vertx.tcp.bridge.frames.processed")
+            .tags("address", MicrometerTcpEventBusBridgeMetrics.OTHER_ADDRESS).counter());
+          context.assertEquals(1L, registry.get("vertx.tcp.bridge.requests").tags("address", "ask").timer().count());
+          socket.close();
+          async.complete();
+        }
+      });
+    }));
+  }
+
+  @Test
+  public void testMaxAddresses() {
+    final MeterRegistry registry = new SimpleMeterRegistry();
+    final MicrometerTcpEventBusBridgeMetrics metrics = new MicrometerTcpEventBusBridgeMetrics(registry, 2);
+
+    metrics.accessDenied("denied", true);
+    metrics.frameProcessed(BridgeEventType.PUBLISH, "a");
+    metrics.frameProcessed(BridgeEventType.PUBLISH, "b");
+    metrics.frameProcessed(BridgeEventType.PUBLISH, "c");
+    metrics.frameProcessed(BridgeEventType.PUBLISH, "d");
+    metrics.frameProcessed(BridgeEventType.PUBLISH, "a");
+
+    assertEquals(2.0, registry.get("vertx.tcp.bridge.frames.processed").tags("address", "a").counter().count(), 0);
+    assertEquals(1.0, registry.get("vertx.tcp.bridge.frames.processed").tags("address", "b").counter().count(), 0);
+    assertEquals(2.0, registry.get("vertx.tcp.bridge.frames.processed")
+      .tags("address", MicrometerTcpEventBusBridgeMetrics.OTHER_ADDRESS).counter().count(), 0);
+    assertNull(registry.find("vertx.tcp.bridge.frames.processed").tags("address", "c").counter());
+    // only the permitted addresses take a tag
+    assertNull(registry.find("vertx.tcp.bridge.access.denied").tags("address", "denied").counter());
+  }
+
+  @Test
+  public void testCompressedBytes() {
+    final MeterRegistry registry = new SimpleMeterRegistry();
+    final MicrometerTcpEventBusBridgeMetrics metrics = new MicrometerTcpEventBusBridgeMetrics(registry);
+
+    metrics.frameCompressed(1000, 200, 10);
+    metrics.frameDecompressed(300, 900, 10);
+
+    assertEquals(1000.0, registry.get("vertx.tcp.bridge.compression.input").tags("direction", "deflate").counter().count(), 0);
+    assertEquals(200.0, registry.get("vertx.tcp.bridge.compression.output").tags("direction", "deflate").counter().count(), 0);
+    assertEquals(300.0, registry.get("vertx.tcp.bridge.compression.input").tags("direction", "inflate").counter().count(), 0);
+    assertEquals(900.0, registry.get("vertx.tcp.bridge.compression.output").tags("direction", "inflate").counter().count(), 0);
+  }
+
+  @Test
+  public void testCancelledRequest() {
+    final MeterRegistry registry = new SimpleMeterRegistry();
+    final MicrometerTcpEventBusBridgeMetrics metrics = new MicrometerTcpEventBusBridgeMetrics(registry);
+
+    metrics.requestStarted("echo");
+    metrics.requestCancelled("echo");
+
+    assertEquals(0.0, registry.get("vertx.tcp.bridge.requests.inflight").gauge().value(), 0);
+    assertEquals(1.0, registry.get("vertx.tcp.bridge.requests.cancelled").tags("address", "echo").counter().count(), 0);
+    // a cancelled request has no round trip
+    assertNull(registry.find("vertx.tcp.bridge.requests").tags("address", "echo").timer());
+  }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.eventbus.bridge.tcp;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.net.NetClient;
+import io.vertx.ext.bridge.PermittedOptions;
+import io.vertx.ext.eventbus.bridge.tcp.impl.protocol.FrameCodecs;
+import io.vertx.ext.eventbus.bridge.tcp.impl.protocol.FrameHelper;
+import io.vertx.ext.eventbus.bridge.tcp.impl.protocol.FrameParser;
+import io.vertx.ext.eventbus.bridge.tcp.spi.FrameCodec;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(VertxUnitRunner.class)
+public class TcpEventBusBridgeFrameTest extends BridgeTestBase {
+
+  @Test
+  public void testFrameTooLarge(TestContext context) {
+    final CountingMetrics metrics = new CountingMetrics();
+
+    startBridge(context, new TcpEventBusBridgeOptions()
+      .addInboundPermitted(new PermittedOptions().setAddress("test"))
+      .setMaxFrameSize(128)
+      .setMetrics(metrics));
+
+    NetClient client = vertx.createNetClient();
+    final Async async = context.async();
+
+    client.connect(7000, "localhost").onComplete(context.asyncAssertSuccess(socket -> {
+
+      final FrameParser parser = new FrameParser(parse -> {
+        context.assertTrue(parse.succeeded());
+        JsonObject frame = parse.result();
+        if ("err".equals(frame.getString("type"))) {
+          context.assertEquals("frame_too_large", frame.getString("message"));
+          context.assertTrue(metrics.frameTooLarge.get() > 128);
+        } else {
+          // the connection is still usable
+          context.assertEquals("pong", frame.getString("type"));
+          client.close();
+          async.complete();
+        }
+      });
+
+      socket.handler(parser);
+
+      final char[] chars = new char[512];
+      Arrays.fill(chars, 'x');
+
+      FrameHelper.sendFrame("send", "test", new String(chars), socket);
+      FrameHelper.sendFrame("ping", socket);
+    }));
+  }
+
+  @Test
+  public void testBinaryFrames(TestContext context) {
+    startBridge(context, new TcpEventBusBridgeOptions()
+      .addInboundPermitted(new PermittedOptions().setAddress("bin"))
+      .addOutboundPermitted(new PermittedOptions().setAddress("bin"))
+      .setUseBinaryFrames(true));
+
+    final Buffer payload = Buffer.buffer(new byte[]{0, 1, 2, 3, (byte) 0xff});
+
+    vertx.eventBus().consumer("bin", (Message<Object> msg) -> {
+      context.assertTrue(msg.body() instanceof Buffer);
+      context.assertEquals(payload, msg.body());
+      // echo it to the registered client
+      if (msg.replyAddress() != null) {
+        msg.reply(msg.body());
+      }
+    });
+
+    NetClient client = vertx.createNetClient();
+    final Async async = context.async();
+
+    client.connect(7000, "localhost").onComplete(context.asyncAssertSuccess(socket -> {
+
+      final FrameParser parser = new FrameParser(parse -> {
+        context.assertTrue(parse.succeeded());
+        JsonObject frame = parse.result();
+        context.assertEquals("message", frame.getString("type"));
+        context.assertEquals("#backtrack", frame.getString("address"));
+        context.assertEquals(payload, frame.getBuffer("body"));
+        client.close();
+        async.complete();
+      });
+
+      socket.handler(parser);
+
+      FrameHelper.sendBinaryFrame("send", "bin", "#backtrack", null, null, payload, socket);
+    }));
+  }
+
+  @Test
+  public void testCborCodec(TestContext context) {
+    startBridge(context, new TcpEventBusBridgeOptions()
+      .addInboundPermitted(new PermittedOptions().setAddress("hello"))
+      .setCodec("cbor"));
+
+    vertx.eventBus().consumer("hello", (Message<JsonObject> msg) -> msg.reply(new JsonObject().put("value", "Hello " + msg.body().getString("value")).put("n", 42.5)));
+
+    final FrameCodec cbor = FrameCodecs.lookup("cbor");
+    NetClient client = vertx.createNetClient();
+    final Async async = context.async();
+
+    client.connect(7000, "localhost").onComplete(context.asyncAssertSuccess(socket -> {
+
+      final FrameParser parser = new FrameParser(cbor, Integer.MAX_VALUE, parse -> {
+        context.assertTrue(parse.succeeded());
+        JsonObject frame = parse.result();
+        context.assertEquals("message", frame.getString("type"));
+        context.assertEquals("Hello vert.x", frame.getJsonObject("body").getString("value"));
+        context.assertEquals(42.5, frame.getJsonObject("body").getDouble("n"));
+        client.close();
+        async.complete();
+      });
+
+      socket.handler(parser);
+
+      FrameHelper.sendFrame(cbor, "send", "hello", "#backtrack", null, null, new JsonObject().put("value", "vert.x"), socket);
+    }));
+  }
+
+  @Test
+  public void testCompression(TestContext context) {
+    final CountingMetrics metrics = new CountingMetrics();
+
+    startBridge(context, new TcpEventBusBridgeOptions()
+      .addInboundPermitted(new PermittedOptions().setAddress("feed"))
+      .addOutboundPermitted(new PermittedOptions().setAddress("feed"))
+      .setCompressionThreshold(256)
+      .setMetrics(metrics));
+
+    final char[] chars = new char[4096];
+    Arrays.fill(chars, 'x');
+    final String body = new String(chars);
+
+    NetClient client = vertx.createNetClient();
+    final Async async = context.async();
+
+    client.connect(7000, "localhost").onComplete(context.asyncAssertSuccess(socket -> {
+
+      final AtomicInteger frames = new AtomicInteger();
+      final AtomicInteger received = new AtomicInteger();
+      final FrameParser parser = new FrameParser(parse -> {
+        context.assertTrue(parse.succeeded());
+        JsonObject frame = parse.result();
+        switch (frames.incrementAndGet()) {
+          case 1:
+            // not negotiated yet
+            context.assertEquals(body, frame.getString("body"));
+            context.assertEquals(0, metrics.compressed.get());
+            // a compressed ping enables compression
+            final FrameHelperTest.BufferCollector ping = new FrameHelperTest.BufferCollector();
+            FrameHelper.sendFrame("ping", ping);
+            socket.write(FrameParserTest.compress(ping.buffers.get(0)));
+            break;
+          case 2:
+            // pong is below the threshold
+            context.assertEquals("pong", frame.getString("type"));
+            context.assertEquals(1, metrics.decompressed.get());
+            vertx.eventBus().publish("feed", body);
+            break;
+          case 3:
+            context.assertEquals(body, frame.getString("body"));
+            context.assertEquals(1, metrics.compressed.get());
+            context.assertTrue(metrics.compressedOutput.get() < metrics.compressedInput.get());
+            context.assertEquals(1, received.get());
+            client.close();
+            async.complete();
+            break;
+        }
+      }).compressionHandler(v -> received.incrementAndGet());
+
+      socket.handler(parser);
+
+      FrameHelper.sendFrame("register", "feed", null, socket);
+      vertx.setTimer(200, t -> vertx.eventBus().publish("feed", body));
+    }));
+  }
+}
@@ -1,6 +1,7 @@
 package io.vertx.ext.eventbus.bridge.tcp;
 
 import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.core.net.NetClient;
 import io.vertx.core.net.NetServerOptions;
@@ -18,6 +19,8 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 @RunWith(VertxUnitRunner.class)
 public class TcpEventBusBridgeHookTest {
 
@@ -111,4 +114,187 @@ public class TcpEventBusBridgeHookTest {
 
   }
 
+  @Test
+  public void testBatchHook(TestContext context) {
+
+    // 1. Check the hook is called once for the whole batch
+    // 2. Check the hook can rewrite the batch
+
+    Async bridgeStart = context.async();
+    Async batch = context.async();
+    Async request = context.async(2);
+
+    AtomicInteger events = new AtomicInteger();
+
+    vertx.eventBus().consumer(address, msg -> {
+      context.assertEquals("Francesco", ((JsonObject) msg.body()).getString("value"));
+      request.countDown();
+    });
+
+    TcpEventBusBridge bridge = TcpEventBusBridge.create(
+      vertx,
+      new TcpEventBusBridgeOptions()
+        .addInboundPermitted(new PermittedOptions())
+        .setBridgeEventPerBatch(true),
+      new NetServerOptions(),
+      be -> {
+        context.assertEquals(1, events.incrementAndGet());
+        context.assertEquals(BridgeEventType.SEND, be.type());
+        context.assertEquals("batch", be.getRawMessage().getString("type"));
+        // drop the last frame
+        be.getRawMessage().getJsonArray("body").remove(2);
+        batch.complete();
+        be.complete(true);
+      }
+    );
+    bridge.listen(7000).onComplete(res -> {
+      context.assertTrue(res.succeeded());
+      bridgeStart.complete();
+    });
+
+    bridgeStart.await();
+
+    NetClient client = vertx.createNetClient();
+
+    client.connect(7000, "localhost").onComplete(context.asyncAssertSuccess(socket -> {
+      final JsonObject payload = new JsonObject().put("value", "Francesco");
+      FrameHelper.writeFrame(new JsonObject()
+        .put("type", "batch")
+        .put("body", new JsonArray()
+          .add(new JsonObject().put("type", "send").put("address", address).put("body", payload))
+          .add(new JsonObject().put("type", "publish").put("address", address).put("body", payload))
+          .add(new JsonObject().put("type", "send").put("address", address).put("body", new JsonObject()))), socket);
+    }));
+
+    batch.await();
+    request.await();
+    client.close();
+  }
+
+  @Test
+  public void testPublishBatchHook(TestContext context) {
+
+    // 1. Check a batch of publish frames is a PUBLISH event
+    // 2. Check a batch with a send frame is a SEND event, not selected here
+
+    Async bridgeStart = context.async();
+    Async request = context.async(4);
+
+    AtomicInteger events = new AtomicInteger();
+
+    vertx.eventBus().consumer(address, msg -> request.countDown());
+
+    TcpEventBusBridge bridge = TcpEventBusBridge.create(
+      vertx,
+      new TcpEventBusBridgeOptions()
+        .addInboundPermitted(new PermittedOptions())
+        .setBridgeEventPerBatch(true)
+        .addBridgeEventType(BridgeEventType.PUBLISH),
+      new NetServerOptions(),
+      be -> {
+        context.assertEquals(1, events.incrementAndGet());
+        context.assertEquals(BridgeEventType.PUBLISH, be.type());
+        be.complete(true);
+      }
+    );
+    bridge.listen(7000).onComplete(res -> {
+      context.assertTrue(res.succeeded());
+      bridgeStart.complete();
+    });
+
+    bridgeStart.await();
+
+    NetClient client = vertx.createNetClient();
+
+    client.connect(7000, "localhost").onComplete(context.asyncAssertSuccess(socket -> {
+      final JsonObject payload = new JsonObject().put("value", "Francesco");
+      FrameHelper.writeFrame(new JsonObject()
+        .put("type", "batch")
+        .put("body", new JsonArray()
+          .add(new JsonObject().put("type", "publish").put("address", address).put("body", payload))
+          .add(new JsonObject().put("type", "publish").put("address", address).put("body", payload))), socket);
+      FrameHelper.writeFrame(new JsonObject()
+        .put("type", "batch")
+        .put("body", new JsonArray()
+          .add(new JsonObject().put("type", "publish").put("address", address).put("body", payload))
+          .add(new JsonObject().put("type", "send").put("address", address).put("body", payload))), socket);
+    }));
+
+    request.await();
+    context.assertEquals(1, events.get());
+    client.close();
+  }
+
+  @Test
+  public void testEventFilter(TestContext context) {
+
+    // 1. Check the frames not selected by type or address skip the filter and the handler
+    // 2. Check the filter rejects synchronously
+    // 3. Check the frames accepted by the filter reach the handler
+
+    Async bridgeStart = context.async();
+    Async delivered = context.async(3);
+    Async blocked = context.async();
+
+    AtomicInteger filtered = new AtomicInteger();
+    AtomicInteger handled = new AtomicInteger();
+
+    vertx.eventBus().consumer(address, msg -> delivered.countDown());
+    vertx.eventBus().consumer("hooked.a", msg -> {
+      context.assertEquals("Francesco", ((JsonObject) msg.body()).getString("value"));
+      delivered.countDown();
+    });
+
+    TcpEventBusBridge bridge = TcpEventBusBridge.create(
+      vertx,
+      new TcpEventBusBridgeOptions()
+        .addInboundPermitted(new PermittedOptions())
+        .addBridgeEventType(BridgeEventType.SEND)
+        .addBridgeEventPermitted(new PermittedOptions().setAddressRegex("hooked\\..+"))
+        .setBridgeEventFilter(be -> {
+          filtered.incrementAndGet();
+          return !be.getRawMessage().getJsonObject("body").containsKey("blocked");
+        }),
+      new NetServerOptions(),
+      be -> {
+        context.assertEquals(BridgeEventType.SEND, be.type());
+        context.assertEquals("hooked.a", be.getRawMessage().getString("address"));
+        handled.incrementAndGet();
+        be.complete(true);
+      }
+    );
+    bridge.listen(7000).onComplete(res -> {
+      context.assertTrue(res.succeeded());
+      bridgeStart.complete();
+    });
+
+    bridgeStart.await();
+
+    NetClient client = vertx.createNetClient();
+
+    client.connect(7000, "localhost").onComplete(context.asyncAssertSuccess(socket -> {
+      final FrameParser parser = new FrameParser(parse -> {
+        context.assertTrue(parse.succeeded());
+        JsonObject frame = parse.result();
+        if ("err".equals(frame.getString("type"))) {
+          context.assertEquals("blocked by bridgeEvent handler", frame.getString("message"));
+          blocked.complete();
+        }
+      });
+      socket.handler(parser);
+
+      final JsonObject payload = new JsonObject().put("value", "Francesco");
+      FrameHelper.sendFrame("ping", null, null, socket);
+      FrameHelper.sendFrame("publish", address, payload, socket);
+      FrameHelper.sendFrame("send", address, payload, socket);
+      FrameHelper.sendFrame("send", "hooked.a", new JsonObject().put("blocked", true), socket);
+      FrameHelper.sendFrame("send", "hooked.a", payload, socket);
+    }));
+
+    delivered.await();
+    blocked.await();
+    context.assertEquals(2, filtered.get());
+    context.assertEquals(1, handled.get());
+    client.close();
+  }
 }
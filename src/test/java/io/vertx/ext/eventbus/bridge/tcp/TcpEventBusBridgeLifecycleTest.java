@@ -0,0 +1,125 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.eventbus.bridge.tcp;
+
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.net.NetClient;
+import io.vertx.ext.bridge.PermittedOptions;
+import io.vertx.ext.eventbus.bridge.tcp.impl.protocol.FrameHelper;
+import io.vertx.ext.eventbus.bridge.tcp.impl.protocol.FrameParser;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(VertxUnitRunner.class)
+public class TcpEventBusBridgeLifecycleTest extends BridgeTestBase {
+
+  @Test
+  public void testGracefulClose(TestContext context) {
+    vertx.eventBus().consumer("slow", msg -> vertx.setTimer(300, t -> msg.reply(msg.body())));
+
+    final TcpEventBusBridge bridge = startBridge(context, new TcpEventBusBridgeOptions()
+      .addInboundPermitted(new PermittedOptions().setAddress("slow")));
+
+    NetClient client = vertx.createNetClient();
+    final Async async = context.async();
+
+    client.connect(7000, "localhost").onComplete(context.asyncAssertSuccess(socket -> {
+
+      final AtomicInteger frames = new AtomicInteger();
+      socket.handler(new FrameParser(parse -> {
+        context.assertTrue(parse.succeeded());
+        JsonObject frame = parse.result();
+        switch (frames.incrementAndGet()) {
+          case 1:
+            context.assertEquals("closing", frame.getString("type"));
+            break;
+          case 2:
+            // the in-flight request has its response before the socket is closed
+            context.assertEquals("#reply", frame.getString("address"));
+            context.assertEquals("hi", frame.getString("body"));
+            break;
+        }
+      }));
+
+      socket.closeHandler(v -> {
+        context.assertEquals(2, frames.get());
+        client.close();
+        async.complete();
+      });
+
+      FrameHelper.sendFrame("send", "slow", "#reply", "hi", socket);
+
+      vertx.setTimer(100, t -> {
+        final long start = System.currentTimeMillis();
+        bridge.close(5000).onComplete(context.asyncAssertSuccess(v -> {
+          // closed once drained, not on the timeout
+          context.assertTrue(System.currentTimeMillis() - start < 5000);
+        }));
+      });
+    }));
+  }
+
+  @Test
+  public void testUpdateOptions(TestContext context) {
+    final TcpEventBusBridge bridge = startBridge(context, new TcpEventBusBridgeOptions()
+      .addOutboundPermitted(new PermittedOptions().setAddress("feed")));
+
+    NetClient client = vertx.createNetClient();
+    final Async async = context.async();
+
+    client.connect(7000, "localhost").onComplete(context.asyncAssertSuccess(socket -> {
+
+      final AtomicInteger frames = new AtomicInteger();
+      socket.handler(new FrameParser(parse -> {
+        context.assertTrue(parse.succeeded());
+        JsonObject frame = parse.result();
+        switch (frames.incrementAndGet()) {
+          case 1:
+            context.assertEquals("message", frame.getString("type"));
+            context.assertEquals("before", frame.getString("body"));
+            // the connection is kept, the registration is revoked
+            bridge.updateOptions(new TcpEventBusBridgeOptions()
+                .addInboundPermitted(new PermittedOptions().setAddress("in")), true)
+              .onComplete(context.asyncAssertSuccess());
+            break;
+          case 2:
+            context.assertEquals("err", frame.getString("type"));
+            context.assertEquals("feed", frame.getString("address"));
+            context.assertEquals("access_denied", frame.getString("message"));
+            vertx.eventBus().publish("feed", "after");
+            // newly permitted
+            vertx.eventBus().consumer("in", msg -> {
+              context.assertEquals("hi", msg.body());
+              client.close();
+              async.complete();
+            });
+            FrameHelper.sendFrame("send", "in", "hi", socket);
+            break;
+          default:
+            context.fail("Unexpected frame " + frame);
+        }
+      }));
+
+      FrameHelper.sendFrame("register", "feed", null, socket);
+      vertx.setTimer(200, t -> vertx.eventBus().publish("feed", "before"));
+    }));
+  }
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.eventbus.bridge.tcp;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.net.NetClient;
+import io.vertx.ext.bridge.PermittedOptions;
+import io.vertx.ext.eventbus.bridge.tcp.impl.protocol.FrameHelper;
+import io.vertx.ext.eventbus.bridge.tcp.impl.protocol.FrameParser;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(VertxUnitRunner.class)
+public class TcpEventBusBridgeLimitTest extends BridgeTestBase {
+
+  @Test
+  public void testMaxConnections(TestContext context) {
+    startBridge(context, new TcpEventBusBridgeOptions()
+      .addOutboundPermitted(new PermittedOptions().setAddressRegex("feed\\..+"))
+      .setMaxConnections(1)
+      .setMaxHandlersPerSocket(1));
+
+    NetClient client = vertx.createNetClient();
+    final Async async = context.async();
+
+    client.connect(7000, "localhost").onComplete(context.asyncAssertSuccess(socket -> {
+
+      socket.handler(new FrameParser(parse -> {
+        context.assertTrue(parse.succeeded());
+        JsonObject frame = parse.result();
+        context.assertEquals("err", frame.getString("type"));
+        context.assertEquals("too_many_handlers", frame.getString("message"));
+
+        // the first connection is still open
+        client.connect(7000, "localhost").onComplete(context.asyncAssertSuccess(rejected -> {
+          final AtomicInteger errors = new AtomicInteger();
+          rejected.handler(new FrameParser(parse2 -> {
+            context.assertTrue(parse2.succeeded());
+            context.assertEquals("too_many_connections", parse2.result().getString("message"));
+            errors.incrementAndGet();
+          }));
+          rejected.closeHandler(v -> {
+            context.assertEquals(1, errors.get());
+            client.close();
+            async.complete();
+          });
+        }));
+      }));
+
+      FrameHelper.sendFrame("register", "feed.a", null, socket);
+      // registering twice the same address does not count
+      FrameHelper.sendFrame("register", "feed.a", null, socket);
+      FrameHelper.sendFrame("register", "feed.b", null, socket);
+    }));
+  }
+
+  @Test
+  public void testMaxConnectionRate(TestContext context) {
+    startBridge(context, new TcpEventBusBridgeOptions()
+      .setMaxConnectionRate(1));
+
+    NetClient client = vertx.createNetClient();
+    final Async async = context.async();
+
+    client.connect(7000, "localhost").onComplete(context.asyncAssertSuccess(socket -> {
+      client.connect(7000, "localhost").onComplete(context.asyncAssertSuccess(rejected -> {
+        final AtomicInteger errors = new AtomicInteger();
+        rejected.handler(new FrameParser(parse -> {
+          context.assertTrue(parse.succeeded());
+          context.assertEquals("connection_rate_exceeded", parse.result().getString("message"));
+          errors.incrementAndGet();
+        }));
+        rejected.closeHandler(v -> {
+          context.assertEquals(1, errors.get());
+          client.close();
+          async.complete();
+        });
+      }));
+    }));
+  }
+
+  @Test
+  public void testPingTimeout(TestContext context) {
+    startBridge(context, new TcpEventBusBridgeOptions()
+      .setPingTimeout(400));
+
+    NetClient client = vertx.createNetClient();
+    final Async async = context.async();
+
+    client.connect(7000, "localhost").onComplete(context.asyncAssertSuccess(socket -> {
+
+      final AtomicInteger pongs = new AtomicInteger();
+      socket.handler(new FrameParser(parse -> {
+        context.assertTrue(parse.succeeded());
+        context.assertEquals("pong", parse.result().getString("type"));
+        pongs.incrementAndGet();
+      }));
+
+      // pinging keeps the socket open longer than the timeout
+      final long timerId = vertx.setPeriodic(100, t -> FrameHelper.sendFrame("ping", socket));
+
+      vertx.setTimer(800, t -> vertx.cancelTimer(timerId));
+
+      socket.closeHandler(v -> {
+        context.assertTrue(pongs.get() >= 6);
+        client.close();
+        async.complete();
+      });
+    }));
+  }
+
+  @Test
+  public void testFrameRateReject(TestContext context) {
+    startBridge(context, new TcpEventBusBridgeOptions()
+      .setMaxFrameRate(2)
+      .setRateLimitPolicy(RateLimitPolicy.REJECT));
+
+    NetClient client = vertx.createNetClient();
+    final Async async = context.async();
+
+    client.connect(7000, "localhost").onComplete(context.asyncAssertSuccess(socket -> {
+
+      final AtomicInteger pongs = new AtomicInteger();
+      final AtomicInteger errors = new AtomicInteger();
+      socket.handler(new FrameParser(parse -> {
+        context.assertTrue(parse.succeeded());
+        JsonObject frame = parse.result();
+        if ("pong".equals(frame.getString("type"))) {
+          pongs.incrementAndGet();
+        } else {
+          context.assertEquals("rate_limit_exceeded", frame.getString("message"));
+          errors.incrementAndGet();
+        }
+        if (pongs.get() + errors.get() == 4) {
+          // the burst is one second of frames
+          context.assertEquals(2, pongs.get());
+          client.close();
+          async.complete();
+        }
+      }));
+
+      for (int i = 0; i < 4; i++) {
+        FrameHelper.sendFrame("ping", socket);
+      }
+    }));
+  }
+
+  private static JsonObject batch(String address, int size) {
+    final JsonArray frames = new JsonArray();
+    for (int i = 0; i < size; i++) {
+      frames.add(new JsonObject().put("type", "send").put("address", address).put("body", i));
+    }
+    return new JsonObject().put("type", "batch").put("replyAddress", "#ack").put("body", frames);
+  }
+
+  @Test
+  public void testBatchFrameRateReject(TestContext context) {
+    final AtomicInteger received = new AtomicInteger();
+    vertx.eventBus().consumer("test", msg -> received.incrementAndGet());
+
+    startBridge(context, new TcpEventBusBridgeOptions()
+      .addInboundPermitted(new PermittedOptions().setAddress("test"))
+      .setMaxFrameRate(3)
+      .setRateLimitPolicy(RateLimitPolicy.REJECT));
+
+    NetClient client = vertx.createNetClient();
+    final Async async = context.async();
+
+    client.connect(7000, "localhost").onComplete(context.asyncAssertSuccess(socket -> {
+
+      final AtomicInteger frames = new AtomicInteger();
+      socket.handler(new FrameParser(parse -> {
+        context.assertTrue(parse.succeeded());
+        JsonObject frame = parse.result();
+        switch (frames.incrementAndGet()) {
+          case 1:
+            // a batch costs as many frames as it carries
+            context.assertEquals("err", frame.getString("type"));
+            context.assertEquals("rate_limit_exceeded", frame.getString("message"));
+            break;
+          case 2:
+            context.assertEquals("#ack", frame.getString("address"));
+            context.assertEquals(3, frame.getJsonObject("body").getInteger("accepted"));
+            break;
+          case 3:
+            // the rejected batch has taken no token
+            context.assertEquals("err", frame.getString("type"));
+            context.assertEquals("rate_limit_exceeded", frame.getString("message"));
+            context.assertEquals(3, received.get());
+            client.close();
+            async.complete();
+            break;
+        }
+      }));
+
+      FrameHelper.writeFrame(batch("test", 4), socket);
+      FrameHelper.writeFrame(batch("test", 3), socket);
+      FrameHelper.sendFrame("ping", socket);
+    }));
+  }
+
+  @Test
+  public void testAddressRateDenied(TestContext context) {
+    final AtomicInteger received = new AtomicInteger();
+    vertx.eventBus().consumer("limited.a", msg -> received.incrementAndGet());
+
+    startBridge(context, new TcpEventBusBridgeOptions()
+      .addInboundPermitted(new PermittedOptions().setAddress("limited.a"))
+      .addRateLimit(new RateLimitOptions().setAddressRegex("limited\\..+").setRate(1).setBurst(1))
+      .setRateLimitPolicy(RateLimitPolicy.REJECT));
+
+    NetClient client = vertx.createNetClient();
+    final Async async = context.async();
+
+    client.connect(7000, "localhost").onComplete(context.asyncAssertSuccess(socket -> {
+
+      final AtomicInteger frames = new AtomicInteger();
+      socket.handler(new FrameParser(parse -> {
+        context.assertTrue(parse.succeeded());
+        JsonObject frame = parse.result();
+        context.assertEquals("err", frame.getString("type"));
+        switch (frames.incrementAndGet()) {
+          case 1:
+            context.assertEquals("access_denied", frame.getString("message"));
+            break;
+          case 2:
+            // the denied frame has not used the token of the permitted one
+            context.assertEquals("rate_limit_exceeded", frame.getString("message"));
+            context.assertEquals(1, received.get());
+            client.close();
+            async.complete();
+            break;
+        }
+      }));
+
+      FrameHelper.sendFrame("send", "limited.b", "denied", socket);
+      FrameHelper.sendFrame("send", "limited.a", "accepted", socket);
+      FrameHelper.sendFrame("send", "limited.a", "limited", socket);
+    }));
+  }
+
+  @Test
+  public void testAddressRatePause(TestContext context) {
+    final AtomicInteger received = new AtomicInteger();
+    vertx.eventBus().consumer("limited", msg -> received.incrementAndGet());
+
+    startBridge(context, new TcpEventBusBridgeOptions()
+      .addInboundPermitted(new PermittedOptions().setAddress("limited"))
+      .addRateLimit(new RateLimitOptions().setAddress("limited").setRate(5).setBurst(1)));
+
+    NetClient client = vertx.createNetClient();
+    final Async async = context.async();
+
+    client.connect(7000, "localhost").onComplete(context.asyncAssertSuccess(socket -> {
+
+      final long start = System.currentTimeMillis();
+      socket.handler(new FrameParser(parse -> {
+        context.assertTrue(parse.succeeded());
+        context.assertEquals("pong", parse.result().getString("type"));
+        // the socket has not been read until the bucket has refilled
+        context.assertTrue(System.currentTimeMillis() - start >= 400);
+        context.assertEquals(4, received.get());
+        client.close();
+        async.complete();
+      }));
+
+      for (int i = 0; i < 4; i++) {
+        FrameHelper.sendFrame("send", "limited", "hi", socket);
+      }
+      vertx.setTimer(50, t -> FrameHelper.sendFrame("ping", socket));
+    }));
+  }
+}
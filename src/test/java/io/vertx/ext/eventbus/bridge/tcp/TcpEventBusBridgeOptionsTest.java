@@ -0,0 +1,53 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.eventbus.bridge.tcp;
+
+import io.vertx.ext.bridge.BridgeEventType;
+import io.vertx.ext.bridge.PermittedOptions;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(VertxUnitRunner.class)
+public class TcpEventBusBridgeOptionsTest extends BridgeTestBase {
+
+  @Test
+  public void testJson() {
+    TcpEventBusBridgeOptions options = new TcpEventBusBridgeOptions()
+      .addInboundPermitted(new PermittedOptions().setAddress("in"))
+      .setMaxFrameSize(1024)
+      .addRateLimit(new RateLimitOptions().setAddressRegex("in\\..+").setRate(100))
+      .addBridgeEventType(BridgeEventType.SEND)
+      .addBridgeEventPermitted(new PermittedOptions().setAddressRegex("in\\..+"));
+
+    TcpEventBusBridgeOptions copy = new TcpEventBusBridgeOptions(options.toJson());
+    assertEquals(1024, copy.getMaxFrameSize());
+    assertEquals("in", copy.getInboundPermitteds().get(0).getAddress());
+    assertEquals("in\\..+", copy.getRateLimits().get(0).getAddressRegex());
+    assertEquals(100, copy.getRateLimits().get(0).getRate());
+    assertEquals(Collections.singleton(BridgeEventType.SEND), copy.getBridgeEventTypes());
+    assertEquals("in\\..+", copy.getBridgeEventPermitteds().get(0).getAddressRegex());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnknownCodec() {
+    TcpEventBusBridge.create(vertx, new TcpEventBusBridgeOptions().setCodec("does-not-exist"));
+  }
+}
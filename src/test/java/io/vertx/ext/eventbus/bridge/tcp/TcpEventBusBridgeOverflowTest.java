@@ -0,0 +1,293 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.eventbus.bridge.tcp;
+
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.net.NetClient;
+import io.vertx.core.net.NetClientOptions;
+import io.vertx.core.net.NetServerOptions;
+import io.vertx.ext.bridge.PermittedOptions;
+import io.vertx.ext.eventbus.bridge.tcp.impl.protocol.FrameHelper;
+import io.vertx.ext.eventbus.bridge.tcp.impl.protocol.FrameParser;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(VertxUnitRunner.class)
+public class TcpEventBusBridgeOverflowTest extends BridgeTestBase {
+
+  private TcpEventBusBridgeOptions overflowOptions(OverflowPolicy policy, CountingMetrics metrics) {
+    return new TcpEventBusBridgeOptions()
+      .addInboundPermitted(new PermittedOptions().setAddress("feed"))
+      .addOutboundPermitted(new PermittedOptions().setAddress("feed"))
+      .setWriteQueueHighWaterMark(1024)
+      .setWriteQueueLowWaterMark(512)
+      .setOverflowPolicy(policy)
+      .setMaxQueuedMessages(10)
+      .setMetrics(metrics);
+  }
+
+  private void publishFeed(int count) {
+    final char[] chars = new char[1024];
+    Arrays.fill(chars, 'x');
+    final String body = new String(chars);
+    for (int i = 0; i < count; i++) {
+      vertx.eventBus().publish("feed", body);
+    }
+  }
+
+  /**
+   * Connect a socket registered to the feed that reads everything, the shared consumer keeps running for it while
+   * another socket is paused.
+   */
+  private void fastSubscriber(TestContext context, NetClient client, Runnable registered) {
+    client.connect(7000, "localhost").onComplete(context.asyncAssertSuccess(fast -> {
+      fast.handler(buff -> {});
+      FrameHelper.sendFrame("register", "feed", null, fast);
+      vertx.setTimer(200, t -> registered.run());
+    }));
+  }
+
+  @Test
+  public void testOverflowDropNewest(TestContext context) {
+    final CountingMetrics metrics = new CountingMetrics();
+    final AtomicInteger received = new AtomicInteger();
+
+    startBridge(context, overflowOptions(OverflowPolicy.DROP_NEWEST, metrics), new NetServerOptions().setSendBufferSize(4096));
+
+    NetClient client = vertx.createNetClient(new NetClientOptions().setReceiveBufferSize(4096));
+    final Async async = context.async();
+
+    client.connect(7000, "localhost").onComplete(context.asyncAssertSuccess(socket -> {
+
+      final FrameParser parser = new FrameParser(parse -> {
+        context.assertTrue(parse.succeeded());
+        context.assertEquals("message", parse.result().getString("type"));
+        if (received.incrementAndGet() + metrics.dropped.get() == 500) {
+          // everything that was not dropped has been delivered
+          client.close();
+          async.complete();
+        }
+      });
+
+      socket.handler(parser);
+
+      FrameHelper.sendFrame("register", "feed", null, socket);
+
+      fastSubscriber(context, client, () -> {
+        // slow consumer
+        socket.pause();
+        publishFeed(500);
+        vertx.setTimer(500, t1 -> {
+          context.assertTrue(metrics.dropped.get() > 0);
+          socket.resume();
+        });
+      });
+    }));
+  }
+
+  @Test
+  public void testSlowSubscriber(TestContext context) {
+    final CountingMetrics metrics = new CountingMetrics();
+    final AtomicInteger received = new AtomicInteger();
+
+    startBridge(context, overflowOptions(OverflowPolicy.BLOCK, metrics), new NetServerOptions().setSendBufferSize(4096));
+
+    NetClient client = vertx.createNetClient(new NetClientOptions().setReceiveBufferSize(4096));
+    final Async async = context.async();
+
+    client.connect(7000, "localhost").onComplete(context.asyncAssertSuccess(slow -> {
+      // never reads
+      slow.pause();
+      FrameHelper.sendFrame("register", "feed", null, slow);
+
+      client.connect(7000, "localhost").onComplete(context.asyncAssertSuccess(fast -> {
+        fast.handler(new FrameParser(parse -> {
+          context.assertTrue(parse.succeeded());
+          context.assertEquals("message", parse.result().getString("type"));
+          if (received.incrementAndGet() == 500) {
+            // the slow socket has not held back the shared consumer
+            context.assertTrue(metrics.dropped.get() > 0);
+            client.close();
+            async.complete();
+          }
+        }));
+
+        FrameHelper.sendFrame("register", "feed", null, fast);
+
+        vertx.setTimer(200, t0 -> publishFeed(500));
+      }));
+    }));
+  }
+
+  @Test
+  public void testOverflowBlock(TestContext context) {
+    testOverflowPaused(context, OverflowPolicy.BLOCK, false);
+  }
+
+  @Test
+  public void testOverflowPointToPoint(TestContext context) {
+    testOverflowPaused(context, OverflowPolicy.DROP_NEWEST, true);
+  }
+
+  /**
+   * The consumers of a slow socket are paused once its queue is full, nothing is dropped when they can buffer the
+   * messages.
+   */
+  private void testOverflowPaused(TestContext context, OverflowPolicy policy, boolean send) {
+    final CountingMetrics metrics = new CountingMetrics();
+    final AtomicInteger received = new AtomicInteger();
+
+    startBridge(context, overflowOptions(policy, metrics), new NetServerOptions().setSendBufferSize(4096));
+
+    NetClient client = vertx.createNetClient(new NetClientOptions().setReceiveBufferSize(4096));
+    final Async async = context.async();
+
+    client.connect(7000, "localhost").onComplete(context.asyncAssertSuccess(socket -> {
+
+      socket.handler(new FrameParser(parse -> {
+        context.assertTrue(parse.succeeded());
+        context.assertEquals("message", parse.result().getString("type"));
+        if (received.incrementAndGet() == 500) {
+          context.assertEquals(0, metrics.dropped.get());
+          client.close();
+          async.complete();
+        }
+      }));
+
+      FrameHelper.sendFrame("register", "feed", null, socket);
+
+      vertx.setTimer(200, t0 -> {
+        // slow consumer
+        socket.pause();
+        final char[] chars = new char[1024];
+        Arrays.fill(chars, 'x');
+        final String body = new String(chars);
+        for (int i = 0; i < 500; i++) {
+          if (send) {
+            vertx.eventBus().send("feed", body);
+          } else {
+            vertx.eventBus().publish("feed", body);
+          }
+        }
+        vertx.setTimer(500, t1 -> {
+          // the queue has been used, within its bound
+          context.assertTrue(metrics.peakQueued.get() > 0);
+          context.assertTrue(metrics.peakQueued.get() <= 10);
+          socket.resume();
+        });
+      });
+    }));
+  }
+
+  @Test
+  public void testOverflowDisconnect(TestContext context) {
+    startBridge(context, overflowOptions(OverflowPolicy.DISCONNECT, new CountingMetrics()), new NetServerOptions().setSendBufferSize(4096));
+
+    NetClient client = vertx.createNetClient(new NetClientOptions().setReceiveBufferSize(4096));
+    final Async async = context.async();
+
+    client.connect(7000, "localhost").onComplete(context.asyncAssertSuccess(socket -> {
+      socket.handler(buff -> {});
+      socket.closeHandler(v -> async.complete());
+
+      FrameHelper.sendFrame("register", "feed", null, socket);
+
+      fastSubscriber(context, client, () -> {
+        socket.pause();
+        publishFeed(500);
+        // the buffered data must be read for the close to be noticed
+        vertx.setTimer(200, t1 -> socket.resume());
+      });
+    }));
+  }
+
+  @Test
+  public void testControlFramePriority(TestContext context) {
+    final int count = 400;
+
+    startBridge(context, new TcpEventBusBridgeOptions()
+      .addOutboundPermitted(new PermittedOptions().setAddress("bulk")));
+
+    final char[] chars = new char[64 * 1024];
+    Arrays.fill(chars, 'x');
+    final String body = new String(chars);
+
+    NetClient client = vertx.createNetClient();
+    final Async async = context.async();
+
+    client.connect(7000, "localhost").onComplete(context.asyncAssertSuccess(socket -> {
+
+      final AtomicInteger messages = new AtomicInteger();
+      socket.handler(new FrameParser(parse -> {
+        context.assertTrue(parse.succeeded());
+        JsonObject frame = parse.result();
+        if ("pong".equals(frame.getString("type"))) {
+          // the pong has overtaken the messages the bridge could not write yet
+          context.assertTrue(messages.get() < count);
+          client.close();
+          async.complete();
+        } else {
+          messages.incrementAndGet();
+        }
+      }));
+
+      FrameHelper.sendFrame("register", "bulk", null, socket);
+      // stop reading until the bridge is congested
+      socket.pause();
+
+      vertx.setTimer(200, t -> {
+        for (int i = 0; i < count; i++) {
+          vertx.eventBus().publish("bulk", body);
+        }
+        vertx.setTimer(500, t2 -> {
+          FrameHelper.sendFrame("ping", socket);
+          vertx.setTimer(200, t3 -> socket.resume());
+        });
+      });
+    }));
+  }
+
+  @Test
+  public void testQueuedReplies(TestContext context) {
+    vertx.eventBus().consumer("echo", msg -> msg.reply(msg.body()));
+
+    startBridge(context, new TcpEventBusBridgeOptions()
+      .addInboundPermitted(new PermittedOptions().setAddress("echo"))
+      .setPrioritizeReplies(false));
+
+    NetClient client = vertx.createNetClient();
+    final Async async = context.async();
+
+    client.connect(7000, "localhost").onComplete(context.asyncAssertSuccess(socket -> {
+      socket.handler(new FrameParser(parse -> {
+        context.assertTrue(parse.succeeded());
+        JsonObject frame = parse.result();
+        context.assertEquals("#reply", frame.getString("address"));
+        context.assertEquals("hi", frame.getString("body"));
+        client.close();
+        async.complete();
+      }));
+
+      FrameHelper.sendFrame("send", "echo", "#reply", "hi", socket);
+    }));
+  }
+}
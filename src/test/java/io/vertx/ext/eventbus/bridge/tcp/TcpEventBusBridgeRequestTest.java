@@ -0,0 +1,242 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.eventbus.bridge.tcp;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.MessageCodec;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.net.NetClient;
+import io.vertx.ext.bridge.PermittedOptions;
+import io.vertx.ext.eventbus.bridge.tcp.impl.protocol.FrameHelper;
+import io.vertx.ext.eventbus.bridge.tcp.impl.protocol.FrameParser;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+@RunWith(VertxUnitRunner.class)
+public class TcpEventBusBridgeRequestTest extends BridgeTestBase {
+
+  @Test
+  public void testReplyTimeout(TestContext context) {
+    final CountingMetrics metrics = new CountingMetrics();
+
+    startBridge(context, new TcpEventBusBridgeOptions()
+      .addOutboundPermitted(new PermittedOptions().setAddress("echo"))
+      .setReplyTimeout(200)
+      .setMetrics(metrics));
+
+    NetClient client = vertx.createNetClient();
+    final Async async = context.async();
+
+    client.connect(7000, "localhost").onComplete(context.asyncAssertSuccess(socket -> {
+
+      final AtomicInteger frames = new AtomicInteger();
+      final FrameParser parser = new FrameParser(parse -> {
+        context.assertTrue(parse.succeeded());
+        JsonObject frame = parse.result();
+        switch (frames.incrementAndGet()) {
+          case 1:
+            // reply once the bridge has forgotten the request
+            final String replyAddress = frame.getString("replyAddress");
+            context.assertNotNull(replyAddress);
+            vertx.setTimer(600, t -> FrameHelper.sendFrame("send", replyAddress, "late", socket));
+            break;
+          case 2:
+            context.assertEquals("err", frame.getString("type"));
+            context.assertEquals("access_denied", frame.getString("message"));
+            context.assertEquals(Collections.singletonList("echo"), new ArrayList<>(metrics.expired));
+            // the timeout header outlives the default, the request is still waiting when the socket is closed
+            vertx.eventBus().request("echo", "hi", new DeliveryOptions().addHeader("timeout", "10000"));
+            break;
+          case 3:
+            context.assertNotNull(frame.getString("replyAddress"));
+            client.close();
+            // the bridge notices the close asynchronously
+            waitUntil(() -> metrics.orphaned.get() == 1, async::complete);
+            break;
+        }
+      });
+
+      socket.handler(parser);
+
+      FrameHelper.sendFrame("register", "echo", null, socket);
+      vertx.setTimer(200, t -> vertx.eventBus().request("echo", "hi"));
+    }));
+  }
+
+  @Test
+  public void testReplyTimeoutNotAligned(TestContext context) {
+    final CountingMetrics metrics = new CountingMetrics();
+
+    startBridge(context, new TcpEventBusBridgeOptions()
+      .addOutboundPermitted(new PermittedOptions().setAddress("echo"))
+      .setMetrics(metrics));
+
+    NetClient client = vertx.createNetClient();
+    final Async async = context.async();
+
+    client.connect(7000, "localhost").onComplete(context.asyncAssertSuccess(socket -> {
+      // never replies
+      socket.handler(buff -> {});
+
+      FrameHelper.sendFrame("register", "echo", null, socket);
+      vertx.setTimer(200, t0 -> {
+        // deadlines between the ticks of the timer wheel
+        for (int i = 0; i < 20; i++) {
+          vertx.eventBus().request("echo", "hi", new DeliveryOptions().addHeader("timeout", String.valueOf(300 + 13 * i)));
+        }
+        vertx.setTimer(1500, t1 -> {
+          context.assertEquals(20, metrics.expired.size());
+          client.close();
+          async.complete();
+        });
+      });
+    }));
+  }
+
+  @Test
+  public void testMaxInflightRequests(TestContext context) {
+    final CountingMetrics metrics = new CountingMetrics();
+
+    vertx.eventBus().consumer("slow", msg -> vertx.setTimer(100, t -> msg.reply(msg.body())));
+
+    startBridge(context, new TcpEventBusBridgeOptions()
+      .addInboundPermitted(new PermittedOptions().setAddress("slow"))
+      .setMaxInflightRequests(1)
+      .setMaxQueuedRequests(1)
+      .setMetrics(metrics));
+
+    NetClient client = vertx.createNetClient();
+    final Async async = context.async();
+
+    client.connect(7000, "localhost").onComplete(context.asyncAssertSuccess(socket -> {
+
+      final AtomicInteger frames = new AtomicInteger();
+      final FrameParser parser = new FrameParser(parse -> {
+        context.assertTrue(parse.succeeded());
+        JsonObject frame = parse.result();
+        switch (frames.incrementAndGet()) {
+          case 1:
+            // over the limit and the queue
+            context.assertEquals("err", frame.getString("type"));
+            context.assertEquals("#3", frame.getString("address"));
+            context.assertEquals("too_many_requests", frame.getString("message"));
+            context.assertEquals(1, metrics.rejected.get());
+            break;
+          case 2:
+            context.assertEquals("#1", frame.getString("address"));
+            context.assertEquals("one", frame.getString("body"));
+            break;
+          case 3:
+            // the queued request has waited for the first one
+            context.assertEquals("#2", frame.getString("address"));
+            context.assertEquals("two", frame.getString("body"));
+            context.assertEquals(1, metrics.peakInflight.get());
+            client.close();
+            async.complete();
+            break;
+        }
+      });
+
+      socket.handler(parser);
+
+      FrameHelper.sendFrame("send", "slow", "#1", "one", socket);
+      FrameHelper.sendFrame("send", "slow", "#2", "two", socket);
+      FrameHelper.sendFrame("send", "slow", "#3", "three", socket);
+    }));
+  }
+
+  @Test
+  public void testRequestAfterClose(TestContext context) {
+    final CountingMetrics metrics = new CountingMetrics();
+    final AtomicInteger encoded = new AtomicInteger();
+    final AtomicReference<Message<Object>> pending = new AtomicReference<>();
+    final Async async = context.async();
+
+    // a response body which counts its encodings, passed as is by the event bus
+    final JsonObject response = new JsonObject().put("value", "late");
+    final JsonObject counting = new JsonObject(response.getMap()) {
+      @Override
+      public Map<String, Object> getMap() {
+        encoded.incrementAndGet();
+        return super.getMap();
+      }
+    };
+    vertx.eventBus().registerCodec(new MessageCodec<JsonObject, JsonObject>() {
+      @Override
+      public void encodeToWire(Buffer buffer, JsonObject json) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public JsonObject decodeFromWire(int pos, Buffer buffer) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public JsonObject transform(JsonObject json) {
+        return json;
+      }
+
+      @Override
+      public String name() {
+        return "counting";
+      }
+
+      @Override
+      public byte systemCodecID() {
+        return -1;
+      }
+    });
+
+    startBridge(context, new TcpEventBusBridgeOptions()
+      .addInboundPermitted(new PermittedOptions().setAddress("slow"))
+      .setMetrics(metrics));
+
+    NetClient client = vertx.createNetClient();
+
+    client.connect(7000, "localhost").onComplete(context.asyncAssertSuccess(socket -> {
+      vertx.eventBus().consumer("slow", msg -> {
+        pending.set(msg);
+        socket.close();
+      });
+
+      waitUntil(() -> metrics.cancelled.get() == 1, () -> {
+        // the socket is closed, answer the pending request now
+        pending.get().reply(counting, new DeliveryOptions().setCodecName("counting"));
+        vertx.setTimer(200, t -> {
+          context.assertEquals(1, metrics.cancelled.get());
+          context.assertEquals(0, metrics.ended.get());
+          context.assertEquals(0, encoded.get());
+          context.assertEquals(0, metrics.framesSent.get());
+          async.complete();
+        });
+      });
+
+      FrameHelper.sendFrame("send", "slow", "#1", "one", socket);
+    }));
+  }
+}
@@ -15,7 +15,10 @@
  */
 package io.vertx.ext.eventbus.bridge.tcp;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.After;
 import org.junit.Before;
@@ -24,6 +27,7 @@ import org.junit.runner.RunWith;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
 import io.vertx.core.eventbus.Message;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.core.net.NetClient;
 import io.vertx.core.net.NetServerOptions;
@@ -491,4 +495,83 @@ public class TcpEventBusBridgeTest {
     }));
   }
 
+  @Test
+  public void testBatch(TestContext context) {
+    NetClient client = vertx.createNetClient();
+    final Async async = context.async();
+    final AtomicInteger received = new AtomicInteger();
+
+    vertx.eventBus().consumer("test", (Message<JsonObject> msg) -> received.incrementAndGet());
+
+    final FrameParser parser = new FrameParser(parse -> {
+      context.assertTrue(parse.succeeded());
+      JsonObject frame = parse.result();
+      if ("err".equals(frame.getString("type"))) {
+        context.assertEquals("access_denied", frame.getString("message"));
+      } else {
+        context.assertEquals("#ack", frame.getString("address"));
+        context.assertEquals(3, frame.getJsonObject("body").getInteger("accepted"));
+        context.assertEquals(1, frame.getJsonObject("body").getInteger("rejected"));
+        vertx.setTimer(100, t -> {
+          context.assertEquals(3, received.get());
+          client.close();
+          async.complete();
+        });
+      }
+    });
+
+    client.connect(7000, "localhost").onComplete(context.asyncAssertSuccess(socket -> {
+      socket.handler(parser);
+      FrameHelper.writeFrame(new JsonObject()
+        .put("type", "batch")
+        .put("replyAddress", "#ack")
+        .put("body", new JsonArray()
+          .add(new JsonObject().put("type", "send").put("address", "test").put("body", new JsonObject().put("n", 1)))
+          .add(new JsonObject().put("type", "publish").put("address", "test").put("body", new JsonObject().put("n", 2)))
+          .add(new JsonObject().put("type", "send").put("address", "denied").put("body", new JsonObject()))
+          .add(new JsonObject().put("type", "send").put("address", "test").put("body", new JsonObject().put("n", 3)))), socket);
+    }));
+  }
+
+  @Test
+  public void testSharedConsumer(TestContext context) {
+    final int clients = 3;
+    final Async registered = context.async(clients);
+    final Async published = context.async(clients);
+    final Async sent = context.async(clients);
+    final List<NetClient> netClients = new ArrayList<>();
+
+    for (int i = 0; i < clients; i++) {
+      NetClient client = vertx.createNetClient();
+      netClients.add(client);
+      final AtomicInteger sends = new AtomicInteger();
+
+      client.connect(7000, "localhost").onComplete(context.asyncAssertSuccess(socket -> {
+        final FrameParser parser = new FrameParser(parse -> {
+          context.assertTrue(parse.succeeded());
+          JsonObject frame = parse.result();
+          context.assertEquals("message", frame.getString("type"));
+          if (frame.getBoolean("send")) {
+            // round-robin, one message per socket
+            context.assertEquals(1, sends.incrementAndGet());
+            sent.countDown();
+          } else {
+            published.countDown();
+          }
+        });
+        socket.handler(parser);
+        FrameHelper.sendFrame("register", "test", null, socket);
+        vertx.setTimer(200, t -> registered.countDown());
+      }));
+    }
+
+    registered.await();
+    vertx.eventBus().publish("test", new JsonObject().put("value", "all"));
+    published.await();
+    for (int i = 0; i < clients; i++) {
+      vertx.eventBus().send("test", new JsonObject().put("value", "one"));
+    }
+    sent.await();
+    netClients.forEach(NetClient::close);
+  }
 }